@@ -10,10 +10,12 @@ import io.swagger.v3.oas.annotations.security.SecurityScheme;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 @EnableWebMvc // Keep this annotation if you specifically need it, otherwise it's often not necessary with Spring Boot autoconfiguration.
 @SpringBootApplication
+@EnableScheduling // Background jobs (e.g. ranking prior refresh)
 // Add the OpenAPI annotations here:
 @OpenAPIDefinition(info = @Info( // Defines the general API info
         title = "Hamhama API",
@@ -0,0 +1,56 @@
+package com.hamhama.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes sure ratings has uk_ratings_user_recipe, which RatingRepository#upsertRating relies on as its conflict
+ * target. ddl-auto only logs a failure to create the key (e.g. because of duplicate rows from before it existed),
+ * and without it every upsert inserts another row.
+ * <p>
+ * Runs after the schema update and before the server accepts requests: if the key is missing, duplicates are
+ * removed (the newest row per user and recipe is kept) and the key is added; if that fails, startup fails.
+ * The recipe rating aggregates are recomputed from the remaining rows by
+ * RecipeRankingService#backfillRatingAggregates.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class RatingKeyInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingKeyInitializer.class);
+
+    private static final String KEY_NAME = "uk_ratings_user_recipe";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatingKeyInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void ensureUniqueKey() {
+        if (keyExists()) {
+            return;
+        }
+        log.warn("Unique key {} is missing on ratings; removing duplicate ratings and adding it", KEY_NAME);
+        int removed = jdbcTemplate.update("DELETE r FROM ratings r JOIN ratings newer " +
+                "ON newer.user_id = r.user_id AND newer.recipe_id = r.recipe_id AND newer.id > r.id");
+        jdbcTemplate.execute("ALTER TABLE ratings ADD CONSTRAINT " + KEY_NAME + " UNIQUE (user_id, recipe_id)");
+        if (!keyExists()) {
+            throw new IllegalStateException("Unique key " + KEY_NAME + " could not be created on ratings");
+        }
+        log.info("Removed {} duplicate ratings and added unique key {}", removed, KEY_NAME);
+    }
+
+    private boolean keyExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                        "WHERE table_schema = DATABASE() AND table_name = 'ratings' AND index_name = ?",
+                Integer.class, KEY_NAME);
+        return count != null && count > 0;
+    }
+}
@@ -1,7 +1,10 @@
 package com.hamhama.config;
 
 import com.hamhama.security.JwtAuthenticationFilter;
+import com.hamhama.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod; // Make sure HttpMethod is imported
@@ -15,6 +18,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -28,7 +32,12 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserDetailsService userDetailsService; // Ensure this bean is correctly configured elsewhere
+    private final UserDetailsPasswordService userDetailsPasswordService; // Stores rehashed passwords on login
+
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength; // Log2 of the BCrypt rounds; raising it rehashes each password at its next login
 
     // Define constants for Swagger paths for clarity and easy maintenance
     private static final String[] SWAGGER_WHITELIST = {
@@ -41,7 +50,29 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength) {
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                // Rehash whenever the stored cost differs ("$2a$10$..."), so lowering the cost takes effect too
+                if (encodedPassword != null && encodedPassword.length() > 7 && encodedPassword.charAt(6) == '$') {
+                    try {
+                        return Integer.parseInt(encodedPassword.substring(4, 6)) != bcryptStrength;
+                    } catch (NumberFormatException e) {
+                        return super.upgradeEncoding(encodedPassword);
+                    }
+                }
+                return super.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    // Keep Boot from also registering the filter with the servlet container: it has to run inside the security
+    // chain, after JWT authentication, to key buckets by user
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
     }
 
     @Bean
@@ -49,6 +80,7 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService); // Called when upgradeEncoding says so
         return authProvider;
     }
 
@@ -70,6 +102,7 @@ public class SecurityConfig {
                         .requestMatchers("/auth/**").permitAll() // Registration and Login
                         .requestMatchers("/profile-pictures/**").permitAll() // Static profile pictures
                         .requestMatchers("/recipe-pictures/**").permitAll() // Static recipe pictures
+                        .requestMatchers("/actuator/health").permitAll() // Liveness for load balancers
 
                         // Public Recipe Reads
                         .requestMatchers(HttpMethod.GET, "/api/recipes", "/api/recipes/*", "/api/recipes/search", "/api/recipes/category/*", "/api/recipes/*/nutrition").permitAll()
@@ -79,6 +112,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/ingredients", "/api/ingredients/*").permitAll()
                         // Public Comment Reads
                         .requestMatchers(HttpMethod.GET, "/comments/recipe/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/comments/*/thread").permitAll()
                         // Public Rating Reads
                         .requestMatchers(HttpMethod.GET, "/ratings/recipe/*/average").permitAll()
                         // Rating Management (Authenticated - own or by admin)
@@ -92,6 +126,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.DELETE, "/api/users/profile-picture").authenticated() // Delete own picture
                         .requestMatchers(HttpMethod.GET, "/api/users/liked-recipes").authenticated() // Get own liked recipes
                         .requestMatchers(HttpMethod.GET, "/api/users/blocked-users").authenticated() // Get own blocked list
+                        .requestMatchers(HttpMethod.GET, "/api/users/feed").authenticated() // Get own home feed
+                        .requestMatchers(HttpMethod.GET, "/api/users/suggestions").authenticated() // Get own follow suggestions
+                        .requestMatchers(HttpMethod.GET, "/api/users/recommendations").authenticated() // Get own recipe recommendations
                         .requestMatchers(HttpMethod.PUT, "/api/users/privacy").authenticated() // Update own privacy
                         .requestMatchers(HttpMethod.GET, "/api/users/privacy").authenticated() // Get own privacy
                         .requestMatchers(HttpMethod.POST, "/api/users/follow/*").authenticated() // Follow user
@@ -105,6 +142,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/users/*/profile").authenticated() // Get someone's public profile (privacy checked in service/controller)
                         .requestMatchers(HttpMethod.PUT, "/api/users/*").authenticated() // General update (for self, if ID matches - or admin handled by role check earlier) - place carefully
                         // ---- ADMIN ONLY ENDPOINTS ----
+                        // Maintenance jobs and moderation tools
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN") // Metrics
                         // User Management (by Admin)
                         .requestMatchers(HttpMethod.GET, "/api/users").hasRole("ADMIN") // Get all users - Added this based on UserController
                         .requestMatchers(HttpMethod.GET, "/api/users/*").hasRole("ADMIN") // Get specific user (admin view) - Ensure it doesn't clash with authenticated /api/users/** below if ID is numeric
@@ -127,7 +167,8 @@ public class SecurityConfig {
                 )
 
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class); // Per-user limits on Gemini-backed routes
 
         return http.build();
     }
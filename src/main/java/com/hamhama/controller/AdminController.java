@@ -0,0 +1,197 @@
+package com.hamhama.controller;
+
+import com.hamhama.dto.AggregateRepairStatus;
+import com.hamhama.dto.BannedTermRequest;
+import com.hamhama.dto.CommentSearchHit;
+import com.hamhama.dto.CursorPage;
+import com.hamhama.dto.UserPurgeStatus;
+import com.hamhama.model.BannedTerm;
+import com.hamhama.service.AggregateRepairService;
+import com.hamhama.service.CommentSearchService;
+import com.hamhama.service.ContentFilterService;
+import com.hamhama.service.UserPurgeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "Administration", description = "Admin-only maintenance endpoints.")
+@SecurityRequirement(name = "bearerAuth") // All endpoints require an ADMIN token (see SecurityConfig)
+public class AdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+    private final AggregateRepairService aggregateRepairService;
+    private final ContentFilterService contentFilterService;
+    private final CommentSearchService commentSearchService;
+    private final UserPurgeService userPurgeService;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    @Operation(summary = "Start aggregate repair (Admin Only)", description = "Starts a background job that recomputes rating, like and comment aggregates per recipe ID range and fixes any drift.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Repair job started",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = AggregateRepairStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "409", description = "Conflict - A repair job is already running")
+    })
+    @PostMapping("/aggregates/repair")
+    public ResponseEntity<AggregateRepairStatus> startAggregateRepair() {
+        log.info("Request received to start aggregate repair");
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(aggregateRepairService.startRepair());
+        } catch (IllegalStateException e) {
+            log.warn("Aggregate repair not started: {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Get aggregate repair status (Admin Only)", description = "Reports progress, throughput and drift counts of the current or last repair job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = AggregateRepairStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+    })
+    @GetMapping("/aggregates/repair")
+    public ResponseEntity<AggregateRepairStatus> getAggregateRepairStatus() {
+        return ResponseEntity.ok(aggregateRepairService.getStatus());
+    }
+
+    @Operation(summary = "List banned terms (Admin Only)", description = "Lists the words, phrases and spam patterns comments are screened against.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Terms retrieved",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = BannedTerm.class))), // List<BannedTerm>
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+    })
+    @GetMapping("/banned-terms")
+    public ResponseEntity<List<BannedTerm>> getBannedTerms() {
+        return ResponseEntity.ok(contentFilterService.getBannedTerms());
+    }
+
+    @Operation(summary = "Add banned terms (Admin Only)", description = "Adds terms to the comment filter; takes effect immediately. Terms already banned are ignored.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Terms added",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = BannedTerm.class))), // List<BannedTerm>
+            @ApiResponse(responseCode = "400", description = "Bad Request - No terms or a term is too long"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role")
+    })
+    @PostMapping("/banned-terms")
+    public ResponseEntity<List<BannedTerm>> addBannedTerms(@RequestBody @Validated BannedTermRequest request) {
+        log.info("Request received to add {} banned terms", request.getTerms().size());
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(contentFilterService.addBannedTerms(request.getTerms(), request.isWholeWord()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Delete a banned term (Admin Only)", description = "Removes a term from the comment filter; takes effect immediately.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Term deleted"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "404", description = "Term not found")
+    })
+    @DeleteMapping("/banned-terms/{id}")
+    public ResponseEntity<Void> deleteBannedTerm(@PathVariable Long id) {
+        log.info("Request received to delete banned term ID {}", id);
+        try {
+            contentFilterService.deleteBannedTerm(id);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Search comments (Admin Only)", description = "Finds comments across all recipes that contain the given words as a phrase, newest first, with the matched ranges of each comment. Pass the returned nextCursor to continue.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Search results (page may be empty)",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<CommentSearchHit>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Query has no searchable words or cursor is invalid"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "503", description = "Search index is still being built")
+    })
+    @GetMapping("/comments/search")
+    public ResponseEntity<CursorPage<CommentSearchHit>> searchComments(
+            @Parameter(description = "Phrase to search for", required = true) @RequestParam String q,
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
+        log.info("Request received to search comments for '{}'", q);
+        try {
+            int boundedSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+            return ResponseEntity.ok(commentSearchService.search(q, cursor, boundedSize));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Purge a user's content (Admin Only)", description = "Starts a background job that deletes all comments (with their replies), ratings and likes of the user in small batches and updates the affected recipes' counters.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Purge started",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = UserPurgeStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "404", description = "User not found"),
+            @ApiResponse(responseCode = "409", description = "Conflict - A purge of this user is already running")
+    })
+    @PostMapping("/users/{userId}/purge")
+    public ResponseEntity<UserPurgeStatus> startUserPurge(@PathVariable Long userId) {
+        log.info("Request received to purge content of user ID {}", userId);
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(userPurgeService.startPurge(userId));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Get user purge status (Admin Only)", description = "Reports progress of the current or last content purge of the user.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retrieved",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = UserPurgeStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - User does not have ADMIN role"),
+            @ApiResponse(responseCode = "404", description = "No purge was started for this user")
+    })
+    @GetMapping("/users/{userId}/purge")
+    public ResponseEntity<UserPurgeStatus> getUserPurgeStatus(@PathVariable Long userId) {
+        UserPurgeStatus status = userPurgeService.getStatus(userId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No purge was started for this user");
+        }
+        return ResponseEntity.ok(status);
+    }
+}
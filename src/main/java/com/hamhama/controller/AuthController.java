@@ -7,6 +7,7 @@ import com.hamhama.model.Role;
 import com.hamhama.model.User; // Import User
 import com.hamhama.repository.UserRepository;
 import com.hamhama.security.JwtUtil;
+import com.hamhama.security.LoginExecutor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -17,10 +18,10 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -35,6 +36,9 @@ import org.springframework.web.server.ResponseStatusException; // Use for consis
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -44,7 +48,7 @@ import java.util.stream.Collectors;
 public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
@@ -104,12 +108,14 @@ public class AuthController {
                             schema = @Schema(implementation = AuthenticationResponse.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid username or password",
                     content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
+            @ApiResponse(responseCode = "429", description = "Too Many Requests - Login queue is full, retry after the Retry-After seconds",
+                    content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
             @ApiResponse(responseCode = "500", description = "Internal Server Error - Error during authentication process",
                     content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE))
     })
     // Public endpoint - no @SecurityRequirement
     @PostMapping("/login")
-    public ResponseEntity<?> login(
+    public CompletableFuture<ResponseEntity<?>> login(
             // Use fully qualified name for Swagger RequestBody annotation
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User login credentials (username, password)", required = true,
                     content = @Content(schema = @Schema(implementation = LoginRequest.class)))
@@ -117,14 +123,36 @@ public class AuthController {
             @Valid @RequestBody LoginRequest loginRequest) {
 
         log.info("Login attempt for user: {}", loginRequest.getUsername());
+        CompletableFuture<Authentication> authentication;
         try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getUsername(),
-                            loginRequest.getPassword()
-                    )
-            );
+            // BCrypt runs on the bounded login pool; this request thread is released meanwhile
+            authentication = loginExecutor.authenticate(new UsernamePasswordAuthenticationToken(
+                    loginRequest.getUsername(),
+                    loginRequest.getPassword()
+            ));
+        } catch (RejectedExecutionException e) {
+            log.warn("Login for user {} rejected: login queue is full", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Too many login attempts, please retry shortly"));
+        }
+        return authentication.handle((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof BadCredentialsException) {
+                log.warn("Login failed for user {}: Invalid credentials", loginRequest.getUsername());
+                // Return 401 Unauthorized with a clear message
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
+            }
+            if (cause != null) {
+                log.error("Unexpected error during login for user {}: {}", loginRequest.getUsername(), cause.getMessage(), cause);
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred during login.");
+            }
+            return loginResponse(result, loginRequest.getUsername());
+        });
+    }
 
+    private ResponseEntity<?> loginResponse(Authentication authentication, String requestedUsername) {
+        try {
             // Assuming your UserDetailsService loads your User entity which includes roles and ID
             User userDetails = (User) authentication.getPrincipal();
             log.info("User '{}' authenticated successfully.", userDetails.getUsername());
@@ -147,16 +175,9 @@ public class AuthController {
 
             return ResponseEntity.ok(response);
 
-        } catch (BadCredentialsException e) {
-            log.warn("Login failed for user {}: Invalid credentials", loginRequest.getUsername());
-            // Return 401 Unauthorized with a clear message
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
         } catch (ClassCastException e) {
-            log.error("Error casting authentication principal to User entity for {}. Check UserDetailsService configuration.", loginRequest.getUsername(), e);
+            log.error("Error casting authentication principal to User entity for {}. Check UserDetailsService configuration.", requestedUsername, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing user details.");
-        } catch (Exception e) {
-            log.error("Unexpected error during login for user {}: {}", loginRequest.getUsername(), e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred during login.");
         }
     }
 }
\ No newline at end of file
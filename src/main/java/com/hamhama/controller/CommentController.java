@@ -1,8 +1,11 @@
 package com.hamhama.controller;
 
 import com.hamhama.dto.CommentDTO; // Import DTO
+import com.hamhama.dto.CursorPage;
 import com.hamhama.model.Comment; // Only needed if returned directly, which updateComment does
 import com.hamhama.service.CommentService;
+import com.hamhama.service.CommentStreamHub;
+import com.hamhama.service.ProhibitedContentException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,6 +23,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException; // Use for standard errors
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -30,7 +34,10 @@ import java.util.List;
 public class CommentController {
 
     private static final Logger log = LoggerFactory.getLogger(CommentController.class); // Added Logger
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_REPLIES_PER_COMMENT = 20;
     private final CommentService commentService;
+    private final CommentStreamHub commentStreamHub;
 
     // Constructor removed as @RequiredArgsConstructor handles it
 
@@ -38,7 +45,7 @@ public class CommentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Comment added successfully",
                     content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
-            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid input (e.g., missing recipeId, empty content)"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid input (e.g., missing recipeId, empty content, unknown parent comment, prohibited language)"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - User not logged in"),
             @ApiResponse(responseCode = "404", description = "Recipe not found"), // If service checks recipe existence
             @ApiResponse(responseCode = "500", description = "Internal Server Error")
@@ -47,7 +54,8 @@ public class CommentController {
     @PostMapping("/add")
     public ResponseEntity<String> addComment(
             @Parameter(description = "ID of the recipe to comment on", required = true) @RequestParam Long recipeId,
-            @Parameter(description = "The content of the comment", required = true) @RequestParam String content) {
+            @Parameter(description = "The content of the comment", required = true) @RequestParam String content,
+            @Parameter(description = "ID of the comment being replied to; omit for a top-level comment") @RequestParam(required = false) Long parentId) {
         log.info("Request received to add comment to recipe ID: {}", recipeId);
         if (content == null || content.trim().isEmpty()) {
             log.warn("Attempted to add empty comment to recipe ID: {}", recipeId);
@@ -55,7 +63,7 @@ public class CommentController {
         }
         try {
             // Assuming commentService gets the user from SecurityContextHolder
-            commentService.addComment(recipeId, content);
+            commentService.addComment(recipeId, content, parentId);
             log.info("Comment added successfully to recipe ID: {}", recipeId);
             return ResponseEntity.ok("Comment added successfully");
         } catch (IllegalArgumentException e) { // Catch specific service exceptions if possible
@@ -68,31 +76,72 @@ public class CommentController {
         }
     }
 
-    @Operation(summary = "Get comments for a recipe", description = "Retrieves all comments associated with a specific recipe ID. Public endpoint.")
+    @Operation(summary = "Get comments for a recipe", description = "Retrieves one page of top-level comments for a specific recipe ID, newest first, each with its first replies in thread order. Pass the returned nextCursor to fetch the following page. Public endpoint.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved comments (list may be empty)",
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved comments (page may be empty)",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = List.class))), // List<CommentDTO>
-            @ApiResponse(responseCode = "404", description = "Recipe not found") // If service validates recipe ID
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<CommentDTO>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor")
     })
     // Public - no @SecurityRequirement
     @GetMapping("/recipe/{recipeId}")
-    public ResponseEntity<List<CommentDTO>> getCommentsByRecipe(
-            @Parameter(description = "ID of the recipe whose comments are to be retrieved", required = true) @PathVariable Long recipeId) {
+    public ResponseEntity<CursorPage<CommentDTO>> getCommentsByRecipe(
+            @Parameter(description = "ID of the recipe whose comments are to be retrieved", required = true) @PathVariable Long recipeId,
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Replies to include per top-level comment (0-20)") @RequestParam(defaultValue = "3") int replies) {
         log.info("Request received to get comments for recipe ID: {}", recipeId);
         try {
-            List<CommentDTO> comments = commentService.getCommentsByRecipe(recipeId);
-            log.debug("Found {} comments for recipe ID: {}", comments.size(), recipeId);
-            return ResponseEntity.ok(comments);
-        } catch (IllegalArgumentException e) { // Example: If service throws for Recipe not found
-            log.warn("Recipe not found when retrieving comments for ID: {}", recipeId);
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+            int boundedSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            int boundedReplies = Math.max(0, Math.min(replies, MAX_REPLIES_PER_COMMENT));
+            CursorPage<CommentDTO> page = commentService.getCommentsByRecipe(recipeId, cursor, boundedSize, boundedReplies);
+            log.debug("Returning {} comments for recipe ID: {}", page.getItems().size(), recipeId);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) { // Malformed cursor
+            log.warn("Invalid cursor when retrieving comments for recipe ID {}: {}", recipeId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         } catch (Exception e) {
             log.error("Error retrieving comments for recipe ID {}: {}", recipeId, e.getMessage(), e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred while retrieving comments.", e);
         }
     }
 
+    @Operation(summary = "Get a comment thread", description = "Retrieves a comment and all of its replies, flattened in thread order; use depth for nesting. Public endpoint.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the thread",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CommentDTO.class))), // List<CommentDTO>
+            @ApiResponse(responseCode = "404", description = "Comment not found")
+    })
+    // Public - no @SecurityRequirement
+    @GetMapping("/{commentId}/thread")
+    public ResponseEntity<List<CommentDTO>> getCommentThread(
+            @Parameter(description = "ID of the comment at the root of the thread", required = true) @PathVariable Long commentId) {
+        log.info("Request received to get thread of comment ID: {}", commentId);
+        try {
+            return ResponseEntity.ok(commentService.getThread(commentId));
+        } catch (RuntimeException e) {
+            if ("Comment not found".equals(e.getMessage())) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+            }
+            log.error("Error retrieving thread of comment ID {}: {}", commentId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred while retrieving the thread.", e);
+        }
+    }
+
+    @Operation(summary = "Stream live comment updates for a recipe", description = "Opens a Server-Sent Events stream that pushes CREATED, UPDATED and DELETED comment events for the recipe. Replaces polling the comments endpoint. Public endpoint.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE))
+    })
+    // Public - no @SecurityRequirement
+    @GetMapping(value = "/recipe/{recipeId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCommentsByRecipe(
+            @Parameter(description = "ID of the recipe whose comments are to be streamed", required = true) @PathVariable Long recipeId) {
+        log.debug("Request received to stream comments for recipe ID: {}", recipeId);
+        return commentStreamHub.subscribe(recipeId);
+    }
+
     @Operation(summary = "Delete a comment", description = "Allows an authenticated user to delete their own comment, or an admin to delete any comment.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Comment deleted successfully",
@@ -129,7 +178,7 @@ public class CommentController {
             @ApiResponse(responseCode = "200", description = "Comment updated successfully",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = Comment.class))), // Should be CommentDTO if service returns DTO
-            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid input (e.g., empty content)"),
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid input (e.g., empty content, prohibited language)"),
             @ApiResponse(responseCode = "401", description = "Unauthorized - User not logged in"),
             @ApiResponse(responseCode = "403", description = "Forbidden - User does not have permission to update this comment"),
             @ApiResponse(responseCode = "404", description = "Comment not found"),
@@ -154,6 +203,9 @@ public class CommentController {
         } catch (AccessDeniedException e) {
             log.warn("Access denied attempt to update comment ID {}: {}", commentId, e.getMessage());
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
+        } catch (ProhibitedContentException e) {
+            log.warn("Rejected update of comment ID {}: {}", commentId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         } catch (IllegalArgumentException e) { // Example: If service throws this for Comment not found
             log.warn("Comment not found for update with ID: {}", commentId);
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
@@ -24,8 +24,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.Objects; // Import Objects for filter
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/recipes")
@@ -34,6 +32,7 @@ import java.util.stream.Collectors;
 public class RecipeController {
 
     private static final Logger log = LoggerFactory.getLogger(RecipeController.class);
+    private static final int MAX_BEST_LIMIT = 100;
     private final RecipeService recipeService;
 
     // Constructor injection is handled by @RestController implicitly if only one constructor,
@@ -159,14 +158,12 @@ public class RecipeController {
             @Parameter(description = "Part of the recipe name to search for (case-insensitive)") @RequestParam(required = false) String name,
             @Parameter(description = "Part of the recipe description to search for (case-insensitive)") @RequestParam(required = false) String description,
             @Parameter(description = "Name of an ingredient to search for within recipes (case-insensitive)") @RequestParam(required = false) String ingredient,
-            @Parameter(description = "Category to filter recipes by") @RequestParam(required = false) RecipeCategory category) {
+            @Parameter(description = "Category to filter recipes by") @RequestParam(required = false) RecipeCategory category,
+            @Parameter(description = "Also report whether the authenticated user liked each recipe") @RequestParam(defaultValue = "false") boolean withLikes) {
         log.info("Searching recipes with criteria - Name: '{}', Description: '{}', Ingredient: '{}', Category: '{}'",
                 name, description, ingredient, category);
         List<Recipe> results = recipeService.searchRecipes(name, description, ingredient, category);
-        List<RecipeResponseDTO> responseDTOs = results.stream()
-                .map(recipe -> recipeService.getRecipeById(recipe.getId()).orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<RecipeResponseDTO> responseDTOs = recipeService.toResponseDTOs(results, withLikes);
         log.debug("Found {} recipes matching search criteria.", responseDTOs.size());
         return ResponseEntity.ok(responseDTOs);
     }
@@ -180,13 +177,11 @@ public class RecipeController {
     // Public endpoint
     @GetMapping("/category/{category}")
     public ResponseEntity<List<RecipeResponseDTO>> getRecipesByCategory(
-            @Parameter(description = "The category to retrieve recipes for", required = true) @PathVariable RecipeCategory category) {
+            @Parameter(description = "The category to retrieve recipes for", required = true) @PathVariable RecipeCategory category,
+            @Parameter(description = "Also report whether the authenticated user liked each recipe") @RequestParam(defaultValue = "false") boolean withLikes) {
         log.info("Request received to get recipes by category: {}", category);
         List<Recipe> recipes = recipeService.getRecipesByCategory(category);
-        List<RecipeResponseDTO> responseDTOs = recipes.stream()
-                .map(recipe -> recipeService.getRecipeById(recipe.getId()).orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<RecipeResponseDTO> responseDTOs = recipeService.toResponseDTOs(recipes, withLikes);
         log.debug("Found {} recipes for category {}.", responseDTOs.size(), category);
         return ResponseEntity.ok(responseDTOs);
     }
@@ -205,17 +200,15 @@ public class RecipeController {
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "A JSON list of recipe categories to filter by", required = true,
                     content = @Content(schema = @Schema(implementation = List.class))) // List<RecipeCategory>
             // Spring's RequestBody annotation remains on the parameter
-            @RequestBody List<RecipeCategory> categories) {
+            @RequestBody List<RecipeCategory> categories,
+            @Parameter(description = "Also report whether the authenticated user liked each recipe") @RequestParam(defaultValue = "false") boolean withLikes) {
         log.info("Request received to get recipes by categories: {}", categories);
         if (categories == null || categories.isEmpty()) {
             log.warn("Received empty category list for /categories endpoint.");
             return ResponseEntity.badRequest().body(List.of()); // Return empty list with 400 Bad Request
         }
         List<Recipe> recipes = recipeService.getRecipesByCategories(categories);
-        List<RecipeResponseDTO> responseDTOs = recipes.stream()
-                .map(recipe -> recipeService.getRecipeById(recipe.getId()).orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<RecipeResponseDTO> responseDTOs = recipeService.toResponseDTOs(recipes, withLikes);
         log.debug("Found {} recipes for categories {}.", responseDTOs.size(), categories);
         return ResponseEntity.ok(responseDTOs);
     }
@@ -261,14 +254,33 @@ public class RecipeController {
     })
     // Public endpoint
     @GetMapping
-    public ResponseEntity<List<RecipeResponseDTO>> getAllRecipes() {
+    public ResponseEntity<List<RecipeResponseDTO>> getAllRecipes(
+            @Parameter(description = "Also report whether the authenticated user liked each recipe") @RequestParam(defaultValue = "false") boolean withLikes) {
         // TODO: Implement pagination using Pageable parameter for scalability
         log.info("Request received to get all recipes");
-        List<RecipeResponseDTO> recipes = recipeService.getAllRecipes();
+        List<RecipeResponseDTO> recipes = recipeService.getAllRecipes(withLikes);
         log.debug("Returning {} recipes.", recipes.size());
         return ResponseEntity.ok(recipes);
     }
 
+    @Operation(summary = "Get best recipes", description = "Retrieves the top recipes ordered by a confidence-adjusted (Bayesian) rating score, so a single 5-star vote does not outrank well-established recipes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved best recipes",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = List.class))) // Schema for List<RecipeResponseDTO>
+    })
+    // Public endpoint
+    @GetMapping("/best")
+    public ResponseEntity<List<RecipeResponseDTO>> getBestRecipes(
+            @Parameter(description = "Maximum number of recipes to return (1-100)") @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Also report whether the authenticated user liked each recipe") @RequestParam(defaultValue = "false") boolean withLikes) {
+        log.info("Request received to get best recipes (limit {})", limit);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_BEST_LIMIT));
+        List<RecipeResponseDTO> recipes = recipeService.getBestRecipes(boundedLimit, withLikes);
+        log.debug("Returning {} best recipes.", recipes.size());
+        return ResponseEntity.ok(recipes);
+    }
+
     @Operation(summary = "Get recipe by ID", description = "Retrieves the details of a specific recipe by its ID.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Recipe found",
@@ -1,8 +1,16 @@
 package com.hamhama.controller;
 
+import com.hamhama.dto.CursorPage;
+import com.hamhama.dto.RecipeResponseDTO;
+import com.hamhama.dto.RecipeSummaryDTO;
 import com.hamhama.dto.UserProfile;
-import com.hamhama.model.Recipe; // Assuming you have a Recipe model
+import com.hamhama.dto.UserSuggestionDTO;
+import com.hamhama.dto.UserSummaryDTO;
 import com.hamhama.model.User; // Assuming you have a User model
+import com.hamhama.security.AuthenticatedUser;
+import com.hamhama.service.FeedService;
+import com.hamhama.service.FollowGraphService;
+import com.hamhama.service.RecommendationService;
 import com.hamhama.service.UserService;
 import io.swagger.v3.oas.annotations.Operation; // For describing endpoints
 import io.swagger.v3.oas.annotations.Parameter; // For describing parameters
@@ -33,6 +41,12 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FeedService feedService;
+    private final FollowGraphService followGraphService;
+    private final RecommendationService recommendationService;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_RECOMMENDATIONS = 50;
 
     // --- Admin accessible endpoints ---
 
@@ -253,69 +267,136 @@ public class UserController {
 
     // --- Read operations for specific user data ---
 
-    @Operation(summary = "Get following list", description = "Retrieves the list of users that the user specified by ID is following. Requires authentication. Access may be restricted based on the target user's privacy settings or blocking.")
+    @Operation(summary = "Get following list", description = "Retrieves one page of the users that the user specified by ID is following, most recent first. Pass the returned nextCursor to fetch the following page. Requires authentication. Access may be restricted based on the target user's privacy settings.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved following list",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = List.class))), // Consider List<UserDTO>
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<UserSummaryDTO>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "403", description = "Forbidden - Profile is private or user is blocked"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}/following")
-    public ResponseEntity<List<User>> getFollowing(
-            @Parameter(description = "ID of the user whose following list is requested") @PathVariable Long id) {
-        // Note: Service layer should ideally handle privacy/blocking checks. Documenting potential 403.
+    public ResponseEntity<CursorPage<UserSummaryDTO>> getFollowing(
+            @Parameter(description = "ID of the user whose following list is requested") @PathVariable Long id,
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
         try {
-            User user = userService.findUserById(id); // Basic fetch
-            // Consider returning List<UserDTO>
-            return ResponseEntity.ok(user.getFollowing());
-        } catch (RuntimeException e) { // Assuming service throws exception if user not found
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found", e);
-            // Or handle AccessDeniedException if service throws it
+            return ResponseEntity.ok(userService.getFollowing(id, cursor, boundPageSize(size)));
+        } catch (RuntimeException e) {
+            throw followListError(e);
         }
     }
 
-    @Operation(summary = "Get followers list", description = "Retrieves the list of users following the user specified by ID. Requires authentication. Access may be restricted based on the target user's privacy settings or blocking.")
+    @Operation(summary = "Get followers list", description = "Retrieves one page of the users following the user specified by ID, most recent first. Pass the returned nextCursor to fetch the following page. Requires authentication. Access may be restricted based on the target user's privacy settings.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved followers list",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = List.class))), // Consider List<UserDTO>
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<UserSummaryDTO>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
             @ApiResponse(responseCode = "403", description = "Forbidden - Profile is private or user is blocked"),
             @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}/followers")
-    public ResponseEntity<List<User>> getFollowers(
-            @Parameter(description = "ID of the user whose followers list is requested") @PathVariable Long id) {
+    public ResponseEntity<CursorPage<UserSummaryDTO>> getFollowers(
+            @Parameter(description = "ID of the user whose followers list is requested") @PathVariable Long id,
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
         try {
-            // Assuming userService.getFollowers includes accessibility checks
-            List<User> followers = userService.getFollowers(id);
-            // Consider returning List<UserDTO>
-            return ResponseEntity.ok(followers);
+            return ResponseEntity.ok(userService.getFollowers(id, cursor, boundPageSize(size)));
         } catch (RuntimeException e) {
-            if (e instanceof org.springframework.security.access.AccessDeniedException) {
-                throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
-            }
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found or access denied", e);
+            throw followListError(e);
+        }
+    }
+
+    private static int boundPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static ResponseStatusException followListError(RuntimeException e) {
+        if (e instanceof org.springframework.security.access.AccessDeniedException) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage(), e);
+        }
+        if (e instanceof IllegalArgumentException) { // Malformed cursor
+            return new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found or access denied", e);
+    }
+
+    @Operation(summary = "Get my home feed", description = "Retrieves one page of the newest recipes published by the users the authenticated user follows, newest first. Pass the returned nextCursor to fetch the following page.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved feed page",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<RecipeResponseDTO>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/feed")
+    public ResponseEntity<CursorPage<RecipeResponseDTO>> getMyFeed(
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
+        AuthenticatedUser user = userService.getCurrentUser();
+        try {
+            return ResponseEntity.ok(feedService.getFeed(user.getId(), cursor, boundPageSize(size)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @Operation(summary = "Get follow suggestions", description = "Suggests users followed by the people the authenticated user follows, ranked by how many of them follow each suggestion. Users already followed and blocked users are excluded.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved suggestions",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = UserSuggestionDTO.class))), // List<UserSuggestionDTO>
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "503", description = "Follow graph is still being loaded")
+    })
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<UserSuggestionDTO>> getFollowSuggestions(
+            @Parameter(description = "Maximum number of suggestions (1-50)") @RequestParam(defaultValue = "20") int limit) {
+        AuthenticatedUser user = userService.getCurrentUser();
+        try {
+            int boundedLimit = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+            return ResponseEntity.ok(followGraphService.suggestFor(user.getId(), boundedLimit));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
         }
     }
 
-    @Operation(summary = "Get my liked recipes", description = "Retrieves the list of recipes liked by the currently authenticated user.")
+    @Operation(summary = "Get recommended recipes", description = "Recommends recipes similar to the ones the authenticated user liked most recently (item-item collaborative filtering over likes and high ratings). Users without likes get the best-ranked recipes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved recommendations",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = RecipeResponseDTO.class))), // List<RecipeResponseDTO>
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    @GetMapping("/recommendations")
+    public ResponseEntity<List<RecipeResponseDTO>> getRecommendations(
+            @Parameter(description = "Maximum number of recipes (1-50)") @RequestParam(defaultValue = "20") int limit) {
+        AuthenticatedUser user = userService.getCurrentUser();
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_RECOMMENDATIONS));
+        return ResponseEntity.ok(recommendationService.recommendFor(user.getId(), boundedLimit));
+    }
+
+    @Operation(summary = "Get my liked recipes", description = "Retrieves one page of the recipes liked by the currently authenticated user, most recent likes first. Pass the returned nextCursor to fetch the following page.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved liked recipes",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = List.class))), // Consider List<RecipeResponseDTO>
+                            schema = @Schema(implementation = CursorPage.class))), // CursorPage<RecipeSummaryDTO>
+            @ApiResponse(responseCode = "400", description = "Bad Request - Invalid cursor"),
             @ApiResponse(responseCode = "401", description = "Unauthorized")
     })
     @GetMapping("/liked-recipes")
-    public ResponseEntity<List<Recipe>> getMyLikedRecipes() {
+    public ResponseEntity<CursorPage<RecipeSummaryDTO>> getMyLikedRecipes(
+            @Parameter(description = "Cursor from the previous page; omit for the first page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (1-100)") @RequestParam(defaultValue = "20") int size) {
+        AuthenticatedUser user = userService.getCurrentUser();
         try {
-            User user = userService.getCurrentUser();
-            // Consider returning List<RecipeResponseDTO>
-            return ResponseEntity.ok(user.getLikedRecipes());
-        } catch (RuntimeException e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not authenticated", e);
+            return ResponseEntity.ok(userService.getLikedRecipes(user.getId(), cursor, boundPageSize(size)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
     }
 
@@ -329,7 +410,7 @@ public class UserController {
     @GetMapping("/profile")
     public ResponseEntity<UserProfile> getMyProfile() {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             UserProfile profile = userService.getUserProfile(user.getId());
             return ResponseEntity.ok(profile);
         } catch (RuntimeException e) {
@@ -347,7 +428,7 @@ public class UserController {
     @GetMapping("/blocked-users")
     public ResponseEntity<List<User>> getMyBlockedUsers() {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             List<User> blockedUsers = userService.getBlockedUsers(user.getId());
             // Consider returning List<UserDTO>
             return ResponseEntity.ok(blockedUsers);
@@ -368,7 +449,7 @@ public class UserController {
             @Parameter(description = "'true' to set profile to private, 'false' for public", required = true)
             @RequestParam Boolean isPrivate) {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             userService.updatePrivacySetting(user.getId(), isPrivate);
             return ResponseEntity.ok("Privacy setting updated successfully");
         } catch (RuntimeException e) { // Catch Unauthorized from getCurrentUser
@@ -389,7 +470,7 @@ public class UserController {
     @GetMapping("/privacy")
     public ResponseEntity<Boolean> getMyPrivacySetting() {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             Boolean isPrivate = userService.getPrivacySetting(user.getId());
             return ResponseEntity.ok(isPrivate);
         } catch (RuntimeException e) {
@@ -452,7 +533,7 @@ public class UserController {
                     content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE))
             @RequestParam("file") MultipartFile file) {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             userService.updateProfilePicture(user.getId(), file);
             return ResponseEntity.ok("Profile picture updated successfully");
         } catch (RuntimeException e) {
@@ -474,7 +555,7 @@ public class UserController {
     @DeleteMapping("/profile-picture")
     public ResponseEntity<String> deleteMyProfilePicture() {
         try {
-            User user = userService.getCurrentUser();
+            AuthenticatedUser user = userService.getCurrentUser();
             userService.deleteProfilePicture(user.getId());
             return ResponseEntity.ok("Profile picture deleted successfully");
         } catch (RuntimeException e) {
@@ -486,11 +567,11 @@ public class UserController {
     }
 
     // Example helper if needed directly in controller (kept private)
-    private User getCurrentUserFromController() {
+    private AuthenticatedUser getCurrentUserFromController() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not authenticated");
         }
-        return (User) authentication.getPrincipal();
+        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.hamhama.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AggregateRepairStatus {
+    private String state; // IDLE, RUNNING, COMPLETED or FAILED
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    private long rangesTotal;
+    private long rangesCompleted;
+    private long rangesFailed;
+    private long recipesScanned;
+    private long driftedRecipes;   // Recipes whose stored aggregates differed from the source tables
+    private long fixedRecipes;
+    private long skippedRecipes;   // Drifted, but modified concurrently; picked up by the next run
+    private double recipesPerSecond;
+}
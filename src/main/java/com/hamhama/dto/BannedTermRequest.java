@@ -0,0 +1,13 @@
+package com.hamhama.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BannedTermRequest {
+    @NotEmpty
+    private List<String> terms;
+    private boolean wholeWord = true; // false for URLs and spam phrases that should match inside words
+}
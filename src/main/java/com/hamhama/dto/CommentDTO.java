@@ -2,10 +2,15 @@
 package com.hamhama.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class CommentDTO {
     private Long id;
     private String content;
@@ -17,4 +22,37 @@ public class CommentDTO {
     private Long userId;
     private Long recipeId;
     private String authorProfilePictureUrl; // <-- Add this
-}
\ No newline at end of file
+
+    private Long parentId; // null for top-level comments
+    private int depth;
+
+    @JsonIgnore
+    private String path; // Materialized thread path, used server-side for grouping
+
+    // First replies of a top-level comment, flattened in thread order (use depth for indentation)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<CommentDTO> replies;
+
+    /**
+     * Used by JPQL constructor expressions in CommentRepository, so a comment listing
+     * is built straight from one SELECT without loading the User/Recipe entities.
+     */
+    public CommentDTO(Long id, String content, LocalDateTime timestamp, Long userId, String username, Long recipeId,
+                      Long parentId, String path, int depth) {
+        this.id = id;
+        this.content = content;
+        this.timestamp = timestamp;
+        this.recipeId = recipeId;
+        this.parentId = parentId;
+        this.path = path;
+        this.depth = depth;
+        if (userId != null) {
+            this.userId = userId;
+            this.username = username;
+            // Same convention as CommentService.convertToDto: {userId}.jpg served from /profile-pictures/
+            this.authorProfilePictureUrl = "/profile-pictures/" + userId + ".jpg";
+        } else {
+            this.username = "Unknown User";
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.hamhama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change to a recipe's comments, published by CommentService and pushed to live subscribers.
+ * {@code comment} is null for DELETED events.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private Type type;
+    private Long recipeId;
+    private Long commentId;
+    private CommentDTO comment;
+}
@@ -0,0 +1,18 @@
+package com.hamhama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A comment matching a moderator search, with the matched ranges of its content.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentSearchHit {
+    private CommentDTO comment;
+    private List<int[]> highlights; // [start, end) character offsets into comment.content
+}
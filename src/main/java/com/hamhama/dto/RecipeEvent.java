@@ -0,0 +1,20 @@
+package com.hamhama.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A recipe was published or removed; published by RecipeService and consumed after commit (e.g. by FeedService).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecipeEvent {
+
+    public enum Type { CREATED, DELETED }
+
+    private Type type;
+    private Long recipeId;
+    private Long authorId;
+}
@@ -16,8 +16,12 @@ public class RecipeResponseDTO {
     private String description;
     private RecipeCategory category;
     private Double averageRating; // Use Double wrapper type if average can be conceptually null before calculation
+    private Integer ratingCount;
+    private Double rankingScore; // Bayesian average used for "best" ordering
     private String imageUrl;
     private String authorUsername; // <<< ADDED FIELD
+    private Integer likeCount;
+    private Boolean likedByCurrentUser; // Only set when requested (withLikes) by an authenticated user, else null
 
     // Optional: Add ingredients if needed in response
     // private List<IngredientInRecipeDTO> ingredients;
@@ -0,0 +1,34 @@
+package com.hamhama.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.hamhama.model.RecipeCategory;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact recipe entry for liked-recipe lists.
+ */
+@Data
+@NoArgsConstructor
+public class RecipeSummaryDTO {
+    private Long id;
+    private String name;
+    private RecipeCategory category;
+    private double averageRating;
+    private String imageUrl;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime likedAt;
+
+    // Used by JPQL constructor expressions in UserLikeRepository
+    public RecipeSummaryDTO(Long id, String name, RecipeCategory category, double averageRating, LocalDateTime likedAt) {
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.averageRating = averageRating;
+        this.imageUrl = "/recipe-pictures/" + id + ".jpg"; // Same convention as RecipeService.convertToResponseDTO
+        this.likedAt = likedAt;
+    }
+}
@@ -1,24 +1,22 @@
 package com.hamhama.dto;
 
-import com.hamhama.model.Recipe;
-
-import java.util.List;
-
 public class UserProfile {
 
     private String username;
     private String email;
     private int followersCount;
     private int followingCount;
-    private List<Recipe> likedRecipes;
+    private long likedRecipesCount;
+    private CursorPage<RecipeSummaryDTO> likedRecipes; // First page; continue with GET /api/users/liked-recipes
     private String profilePictureUrl;
     private Boolean isPrivate;
 
-    public UserProfile(String username, String email, int followersCount, int followingCount, List<Recipe> likedRecipes, String profilePictureUrl, Boolean isPrivate) {
+    public UserProfile(String username, String email, int followersCount, int followingCount, long likedRecipesCount, CursorPage<RecipeSummaryDTO> likedRecipes, String profilePictureUrl, Boolean isPrivate) {
         this.username = username;
         this.email = email;
         this.followersCount = followersCount;
         this.followingCount = followingCount;
+        this.likedRecipesCount = likedRecipesCount;
         this.likedRecipes = likedRecipes;
         this.profilePictureUrl = profilePictureUrl;
         this.isPrivate = isPrivate;
@@ -75,11 +73,19 @@ public class UserProfile {
         this.followingCount = followingCount;
     }
 
-    public List<Recipe> getLikedRecipes() {
+    public long getLikedRecipesCount() {
+        return likedRecipesCount;
+    }
+
+    public void setLikedRecipesCount(long likedRecipesCount) {
+        this.likedRecipesCount = likedRecipesCount;
+    }
+
+    public CursorPage<RecipeSummaryDTO> getLikedRecipes() {
         return likedRecipes;
     }
 
-    public void setLikedRecipes(List<Recipe> likedRecipes) {
+    public void setLikedRecipes(CursorPage<RecipeSummaryDTO> likedRecipes) {
         this.likedRecipes = likedRecipes;
     }
 }
@@ -0,0 +1,32 @@
+package com.hamhama.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPurgeStatus {
+    private Long userId;
+    private String state; // RUNNING, COMPLETED or FAILED
+    private String phase; // QUEUED, COMMENTS, RATINGS, LIKES, DONE
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    private long chunksCommitted;
+    private long commentsDeleted;   // Includes replies by other users below the user's comments
+    private long ratingsDeleted;
+    private long likesDeleted;
+    private long recipesUpdated;    // Aggregate updates applied (one per recipe per chunk)
+    private String error;
+}
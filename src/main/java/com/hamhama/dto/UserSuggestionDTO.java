@@ -0,0 +1,23 @@
+package com.hamhama.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A "people you may know" entry: a user followed by people the requester follows.
+ */
+@Data
+@NoArgsConstructor
+public class UserSuggestionDTO {
+    private Long id;
+    private String username;
+    private String profilePictureUrl;
+    private int mutualFollows; // How many of the requester's followees follow this user
+
+    // Used by the JPQL constructor expression in UserRepository
+    public UserSuggestionDTO(Long id, String username) {
+        this.id = id;
+        this.username = username;
+        this.profilePictureUrl = "/profile-pictures/" + id + ".jpg"; // Same convention as UserService.getUserProfile
+    }
+}
@@ -0,0 +1,29 @@
+package com.hamhama.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact user entry for follower/following lists.
+ */
+@Data
+@NoArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String username;
+    private String profilePictureUrl;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime followedAt;
+
+    // Used by JPQL constructor expressions in UserFollowRepository
+    public UserSummaryDTO(Long id, String username, LocalDateTime followedAt) {
+        this.id = id;
+        this.username = username;
+        this.profilePictureUrl = "/profile-pictures/" + id + ".jpg"; // Same convention as UserService.getUserProfile
+        this.followedAt = followedAt;
+    }
+}
@@ -5,7 +5,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+        // Keyset pagination of top-level comments (depth 0): newest-first pages are one range scan regardless of how deep the page is
+        @Index(name = "idx_comments_recipe_depth_timestamp_id", columnList = "recipe_id, depth, timestamp, id"),
+        // Threads: a subtree, or the replies of a page of top-level comments, is one range scan in path order
+        @Index(name = "idx_comments_recipe_path", columnList = "recipe_id, path")
+})
 public class Comment {
 
     @Id
@@ -24,6 +29,16 @@ public class Comment {
     @JoinColumn(name = "recipe_id") // Link to the recipe that this comment belongs to
     private Recipe recipe;
 
+    @Column(name = "parent_id")
+    private Long parentId; // Comment this one replies to; null for top-level comments
+
+    // Materialized path (see CommentPath). Binary collation so ordering and prefix ranges are byte-wise.
+    @Column(name = "path", columnDefinition = "varchar(255) character set ascii collate ascii_bin")
+    private String path;
+
+    @Column(name = "depth", nullable = false, columnDefinition = "int not null default 0")
+    private int depth; // 0 for top-level comments
+
     @PrePersist  // This method will run before the entity is persisted
     public void prePersist() {
         this.timestamp = LocalDateTime.now();  // Set current time
@@ -71,4 +86,28 @@ public class Comment {
     public void setRecipe(Recipe recipe) {
         this.recipe = recipe;
     }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Long parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
 }
@@ -0,0 +1,59 @@
+package com.hamhama.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One recipe in a user's home feed, written by fan-out when a followed user publishes a recipe.
+ * Two IDs per row; the primary key (user_id, recipe_id) serves newest-first feed pages as a range scan.
+ */
+@Entity
+@Table(name = "feed_entries", indexes = {
+        @Index(name = "idx_feed_entries_recipe", columnList = "recipe_id") // Removing a deleted recipe from all feeds
+})
+@IdClass(FeedEntry.Key.class)
+public class FeedEntry {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "recipe_id")
+    private Long recipeId;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getRecipeId() {
+        return recipeId;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long recipeId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long recipeId) {
+            this.userId = userId;
+            this.recipeId = recipeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(recipeId, key.recipeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, recipeId);
+        }
+    }
+}
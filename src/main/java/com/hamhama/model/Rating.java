@@ -5,7 +5,10 @@ import jakarta.persistence.*;
 
 
 @Entity
-@Table (name = "ratings")
+@Table (name = "ratings", uniqueConstraints = {
+        // One rating per user and recipe; also the conflict target of RatingRepository#upsertRating
+        @UniqueConstraint(name = "uk_ratings_user_recipe", columnNames = {"user_id", "recipe_id"})
+})
 public class Rating {
 
     @Id
@@ -14,6 +17,10 @@ public class Rating {
 
     private int ratingValue; // The rating (1-5)
 
+    // Value this row held before the last upsert (0 = newly inserted); lets the caller apply the aggregate delta
+    @Column(name = "previous_value", nullable = false)
+    private int previousValue;
+
     @JsonBackReference
     @ManyToOne
     @JoinColumn(name = "recipe_id") // Join to the Recipe entity
@@ -40,6 +47,14 @@ public class Rating {
         this.ratingValue = ratingValue;
     }
 
+    public int getPreviousValue() {
+        return previousValue;
+    }
+
+    public void setPreviousValue(int previousValue) {
+        this.previousValue = previousValue;
+    }
+
     public Recipe getRecipe() {
         return recipe;
     }
@@ -8,7 +8,12 @@ import java.util.ArrayList;
 import java.util.List;
 @Entity
 
-@Table(name = "recipes")
+@Table(name = "recipes", indexes = {
+        // Backs the "best recipes" listing: ORDER BY ranking_score DESC, id DESC is a single backward index scan
+        @Index(name = "idx_recipes_ranking_score", columnList = "ranking_score, id"),
+        // Newest recipes of an author (feed fan-out on read for accounts with many followers)
+        @Index(name = "idx_recipes_user_id", columnList = "user_id, id")
+})
 public class Recipe {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,8 +33,28 @@ public class Recipe {
     @ManyToMany(mappedBy = "likedRecipes")
     private List<User> likedByUsers = new ArrayList<>();
 
+    // Rating aggregates are maintained by atomic UPDATE statements (RecipeRepository#applyRatingDelta)
+    // and are never written back from the entity, so a stale Recipe instance cannot overwrite them.
+    @Column(updatable = false)
     private double averageRating;
 
+    @Column(name = "rating_count", updatable = false)
+    private int ratingCount;
+
+    @Column(name = "rating_sum", updatable = false)
+    private long ratingSum;
+
+    // Bayesian average against the global mean (see RecipeRankingService)
+    @Column(name = "ranking_score", updatable = false)
+    private double rankingScore;
+
+    // Counters maintained the same way; AggregateRepairService verifies and repairs all of them
+    @Column(name = "like_count", updatable = false)
+    private int likeCount;
+
+    @Column(name = "comment_count", updatable = false)
+    private int commentCount;
+
     @JsonManagedReference
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL)
     private List<Rating> ratings;
@@ -58,6 +83,46 @@ public class Recipe {
         this.averageRating = averageRating;
     }
 
+    public int getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(int ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public double getRankingScore() {
+        return rankingScore;
+    }
+
+    public void setRankingScore(double rankingScore) {
+        this.rankingScore = rankingScore;
+    }
+
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
     public List<Rating> getRatings() {
         return ratings;
     }
@@ -0,0 +1,64 @@
+package com.hamhama.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * One of the top-K most similar recipes of a recipe, written by RecommendationService's offline job.
+ * Score is the cosine similarity of the two recipes' sets of users who liked or rated them highly.
+ */
+@Entity
+@Table(name = "recipe_similarities")
+@IdClass(RecipeSimilarity.Key.class)
+public class RecipeSimilarity {
+
+    @Id
+    @Column(name = "recipe_id")
+    private Long recipeId;
+
+    @Id
+    @Column(name = "neighbor_id")
+    private Long neighborId;
+
+    @Column(nullable = false)
+    private float score;
+
+    public Long getRecipeId() {
+        return recipeId;
+    }
+
+    public Long getNeighborId() {
+        return neighborId;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public static class Key implements Serializable {
+        private Long recipeId;
+        private Long neighborId;
+
+        public Key() {
+        }
+
+        public Key(Long recipeId, Long neighborId) {
+            this.recipeId = recipeId;
+            this.neighborId = neighborId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(recipeId, key.recipeId) && Objects.equals(neighborId, key.neighborId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(recipeId, neighborId);
+        }
+    }
+}
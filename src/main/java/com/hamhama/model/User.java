@@ -31,6 +31,14 @@ public class User implements UserDetails { // Implement UserDetails for security
 
     private Boolean isPrivate = false; // Default to public profile
 
+    // Denormalized follow counts, maintained with atomic increments by UserRepository (never written from the entity).
+    // NULL means "not computed yet" for rows that predate the columns; UserService backfills them at startup.
+    @Column(name = "follower_count", updatable = false)
+    private Integer followerCount = 0;
+
+    @Column(name = "following_count", updatable = false)
+    private Integer followingCount = 0;
+
     @Enumerated(EnumType.STRING)
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id")) // Customize table name
@@ -46,7 +54,9 @@ public class User implements UserDetails { // Implement UserDetails for security
     @JoinTable(
             name = "user_follows",
             joinColumns = @JoinColumn(name = "follower_id"),
-            inverseJoinColumns = @JoinColumn(name = "following_id")
+            inverseJoinColumns = @JoinColumn(name = "following_id"),
+            // One row per pair; lets UserRepository#insertFollow be an idempotent INSERT IGNORE
+            uniqueConstraints = @UniqueConstraint(name = "uk_user_follows_pair", columnNames = {"follower_id", "following_id"})
     )
     private List<User> following = new ArrayList<>();
 
@@ -59,7 +69,8 @@ public class User implements UserDetails { // Implement UserDetails for security
     @JoinTable(
             name = "user_likes",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "recipe_id")
+            inverseJoinColumns = @JoinColumn(name = "recipe_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_user_likes_pair", columnNames = {"user_id", "recipe_id"})
     )
     private List<Recipe> likedRecipes = new ArrayList<>();
 
@@ -68,7 +79,8 @@ public class User implements UserDetails { // Implement UserDetails for security
     @JoinTable(
             name = "blocked_users", // New table to track blocked users
             joinColumns = @JoinColumn(name = "user_id"), // The user who is blocking
-            inverseJoinColumns = @JoinColumn(name = "blocked_user_id") // The user being blocked
+            inverseJoinColumns = @JoinColumn(name = "blocked_user_id"), // The user being blocked
+            uniqueConstraints = @UniqueConstraint(name = "uk_blocked_users_pair", columnNames = {"user_id", "blocked_user_id"})
     )
     private List<User> blockedUsers = new ArrayList<>(); // List of users blocked by this user
 
@@ -126,6 +138,12 @@ public class User implements UserDetails { // Implement UserDetails for security
     public Boolean getIsPrivate() { return isPrivate; }
     public void setIsPrivate(Boolean isPrivate) { this.isPrivate = isPrivate; }
 
+    public Integer getFollowerCount() { return followerCount; }
+    public void setFollowerCount(Integer followerCount) { this.followerCount = followerCount; }
+
+    public Integer getFollowingCount() { return followingCount; }
+    public void setFollowingCount(Integer followingCount) { this.followingCount = followingCount; }
+
     public Set<Role> getRoles() { return roles; }
     public void setRoles(Set<Role> roles) { this.roles = roles; }
 
@@ -0,0 +1,71 @@
+package com.hamhama.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read model of one row of the user_follows join table behind User.following / User.followers.
+ * Used for paginated follower/following listings without loading User collections.
+ */
+@Entity
+@Table(name = "user_follows", indexes = {
+        // Keyset pagination, newest follows first: "who follows X" and "whom does X follow"
+        @Index(name = "idx_user_follows_following_time", columnList = "following_id, followed_at, follower_id"),
+        @Index(name = "idx_user_follows_follower_time", columnList = "follower_id, followed_at, following_id")
+})
+@IdClass(UserFollow.Key.class)
+public class UserFollow {
+
+    @Id
+    @Column(name = "follower_id")
+    private Long followerId;
+
+    @Id
+    @Column(name = "following_id")
+    private Long followingId;
+
+    // Filled in by the database, so rows written through the @ManyToMany mapping get it as well
+    @Column(name = "followed_at", insertable = false, updatable = false,
+            columnDefinition = "datetime(6) not null default current_timestamp(6)")
+    private LocalDateTime followedAt;
+
+    public Long getFollowerId() {
+        return followerId;
+    }
+
+    public Long getFollowingId() {
+        return followingId;
+    }
+
+    public LocalDateTime getFollowedAt() {
+        return followedAt;
+    }
+
+    public static class Key implements Serializable {
+        private Long followerId;
+        private Long followingId;
+
+        public Key() {
+        }
+
+        public Key(Long followerId, Long followingId) {
+            this.followerId = followerId;
+            this.followingId = followingId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(followerId, key.followerId) && Objects.equals(followingId, key.followingId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(followerId, followingId);
+        }
+    }
+}
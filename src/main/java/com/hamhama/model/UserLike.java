@@ -0,0 +1,70 @@
+package com.hamhama.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Read model of one row of the user_likes join table behind User.likedRecipes.
+ * Used for paginated liked-recipe listings without loading User collections.
+ */
+@Entity
+@Table(name = "user_likes", indexes = {
+        // Keyset pagination of a user's likes, newest first
+        @Index(name = "idx_user_likes_user_time", columnList = "user_id, liked_at, recipe_id")
+})
+@IdClass(UserLike.Key.class)
+public class UserLike {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "recipe_id")
+    private Long recipeId;
+
+    // Filled in by the database, so rows written by UserRepository#insertLike get it as well
+    @Column(name = "liked_at", insertable = false, updatable = false,
+            columnDefinition = "datetime(6) not null default current_timestamp(6)")
+    private LocalDateTime likedAt;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getRecipeId() {
+        return recipeId;
+    }
+
+    public LocalDateTime getLikedAt() {
+        return likedAt;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private Long recipeId;
+
+        public Key() {
+        }
+
+        public Key(Long userId, Long recipeId) {
+            this.userId = userId;
+            this.recipeId = recipeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(recipeId, key.recipeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, recipeId);
+        }
+    }
+}
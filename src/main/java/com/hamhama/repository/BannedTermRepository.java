@@ -0,0 +1,14 @@
+package com.hamhama.repository;
+
+import com.hamhama.model.BannedTerm;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BannedTermRepository extends JpaRepository<BannedTerm, Long> {
+
+    List<BannedTerm> findByTermIn(Collection<String> terms);
+}
@@ -1,10 +1,18 @@
 package com.hamhama.repository;
 
+import com.hamhama.dto.CommentDTO;
 import com.hamhama.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
@@ -14,4 +22,68 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     // Find all comments by a specific user
     List<Comment> findByUserId(Long userId);
+
+    // Rows are projected straight into CommentDTO with the author joined in, so a listing is a single statement
+    String COMMENT_DTO_SELECT = "SELECT new com.hamhama.dto.CommentDTO(c.id, c.content, c.timestamp, u.id, u.username, c.recipe.id, " +
+            "c.parentId, c.path, c.depth) FROM Comment c LEFT JOIN c.user u ";
+
+    // --- Keyset pagination of top-level comments (newest first), served by idx_comments_recipe_depth_timestamp_id ---
+
+    @Query(COMMENT_DTO_SELECT + "WHERE c.recipe.id = :recipeId AND c.depth = 0 ORDER BY c.timestamp DESC, c.id DESC")
+    List<CommentDTO> findFirstPageByRecipe(@Param("recipeId") Long recipeId, Pageable pageable);
+
+    @Query(COMMENT_DTO_SELECT + "WHERE c.recipe.id = :recipeId AND c.depth = 0 " +
+            "AND (c.timestamp < :timestamp OR (c.timestamp = :timestamp AND c.id < :id)) " +
+            "ORDER BY c.timestamp DESC, c.id DESC")
+    List<CommentDTO> findPageByRecipeBefore(@Param("recipeId") Long recipeId,
+                                            @Param("timestamp") LocalDateTime timestamp,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    @Query(COMMENT_DTO_SELECT + "WHERE c.id IN :ids")
+    List<CommentDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // --- Search index bootstrap: comment text in primary-key order ---
+
+    interface CommentText {
+        Long getId();
+
+        String getContent();
+    }
+
+    @Query("SELECT c.id AS id, c.content AS content FROM Comment c WHERE c.id > :afterId ORDER BY c.id")
+    List<CommentText> findTextAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    interface CommentOwner {
+        Long getId();
+
+        Long getUserId();
+
+        Long getRecipeId();
+
+        String getPath();
+    }
+
+    // Ownership checks (see OwnershipEvaluator), also enough for CommentService#deleteComment
+    @Query("SELECT c.id AS id, c.user.id AS userId, c.recipe.id AS recipeId, c.path AS path FROM Comment c WHERE c.id = :id")
+    Optional<CommentOwner> findOwnerById(@Param("id") Long id);
+
+    // --- Threads (materialized path), served by idx_comments_recipe_path ---
+
+    /**
+     * A comment and all of its replies in thread order. {@code pathPattern} comes from CommentPath.subtreePattern.
+     */
+    @Query(COMMENT_DTO_SELECT + "WHERE c.recipe.id = :recipeId AND c.path LIKE :pathPattern ORDER BY c.path")
+    List<CommentDTO> findSubtree(@Param("recipeId") Long recipeId, @Param("pathPattern") String pathPattern);
+
+    @Query("SELECT c.id FROM Comment c WHERE c.recipe.id = :recipeId AND c.path LIKE :pathPattern")
+    List<Long> findSubtreeIds(@Param("recipeId") Long recipeId, @Param("pathPattern") String pathPattern);
+
+    /**
+     * Gives comments created before threading existed a root path. Runs in chunks; returns rows updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE comments SET path = LPAD(LOWER(CONV(id, 10, 36)), 8, '0'), depth = 0 " +
+            "WHERE path IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillRootPaths(@Param("limit") int limit);
 }
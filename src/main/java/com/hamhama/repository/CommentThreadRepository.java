@@ -0,0 +1,60 @@
+package com.hamhama.repository;
+
+import com.hamhama.dto.CommentDTO;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC queries over comment threads that need window functions (not expressible in JPQL).
+ */
+@Repository
+public class CommentThreadRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CommentThreadRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the first {@code limit} replies (any depth, thread order) of each of the given top-level comments.
+     * <p>
+     * The roots' subtrees all lie in the path range [fromPath, toPath), so the inner query is a single range scan
+     * on idx_comments_recipe_path; ROW_NUMBER then keeps the first rows of each thread.
+     *
+     * @param rootPaths Paths of the top-level comments.
+     * @param fromPath  Smallest root path (inclusive).
+     * @param toPath    Path segment just after the largest root (exclusive).
+     * @return Replies ordered by path, i.e. grouped by thread.
+     */
+    public List<CommentDTO> findFirstReplies(Long recipeId, Collection<String> rootPaths, String fromPath, String toPath, int limit) {
+        String sql = "SELECT t.id, t.content, t.timestamp, t.user_id, t.username, t.recipe_id, t.parent_id, t.path, t.depth " +
+                "FROM (SELECT c.id, c.content, c.timestamp, c.user_id, u.username, c.recipe_id, c.parent_id, c.path, c.depth, " +
+                "             ROW_NUMBER() OVER (PARTITION BY LEFT(c.path, 8) ORDER BY c.path) AS rn " +
+                "      FROM comments c LEFT JOIN users u ON u.id = c.user_id " +
+                "      WHERE c.recipe_id = :recipeId AND c.path >= :fromPath AND c.path < :toPath " +
+                "        AND c.depth > 0 AND LEFT(c.path, 8) IN (:rootPaths)) t " +
+                "WHERE t.rn <= :limit ORDER BY t.path";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("recipeId", recipeId)
+                .addValue("rootPaths", rootPaths)
+                .addValue("fromPath", fromPath)
+                .addValue("toPath", toPath)
+                .addValue("limit", limit);
+        return jdbcTemplate.query(sql, params, (rs, rowNum) -> new CommentDTO(
+                rs.getLong("id"),
+                rs.getString("content"),
+                rs.getObject("timestamp", LocalDateTime.class),
+                rs.getObject("user_id", Long.class),
+                rs.getString("username"),
+                rs.getLong("recipe_id"),
+                rs.getObject("parent_id", Long.class),
+                rs.getString("path"),
+                rs.getInt("depth")));
+    }
+}
@@ -0,0 +1,48 @@
+package com.hamhama.repository;
+
+import com.hamhama.model.FeedEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FeedEntryRepository extends JpaRepository<FeedEntry, FeedEntry.Key> {
+
+    /**
+     * Fan-out on write: adds the recipe to the feed of every follower of its author in one statement.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO feed_entries (user_id, recipe_id) " +
+            "SELECT f.follower_id, :recipeId FROM user_follows f WHERE f.following_id = :authorId", nativeQuery = true)
+    int fanOut(@Param("authorId") Long authorId, @Param("recipeId") Long recipeId);
+
+    // Newest first, strictly below the cursor; a range scan on the primary key
+    @Query(value = "SELECT recipe_id FROM feed_entries WHERE user_id = :userId AND recipe_id < :before " +
+            "ORDER BY recipe_id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findRecipeIds(@Param("userId") Long userId, @Param("before") long before, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM feed_entries WHERE recipe_id = :recipeId", nativeQuery = true)
+    int deleteByRecipe(@Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = "DELETE fe FROM feed_entries fe JOIN recipes r ON r.id = fe.recipe_id " +
+            "WHERE fe.user_id = :userId AND r.user_id = :authorId", nativeQuery = true)
+    int deleteByUserAndAuthor(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Query(value = "SELECT user_id FROM feed_entries GROUP BY user_id HAVING COUNT(*) > :cap", nativeQuery = true)
+    List<Long> findUsersOverCap(@Param("cap") int cap);
+
+    /**
+     * Keeps only the user's {@code cap} newest entries: the cutoff is the newest entry beyond them.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM feed_entries WHERE user_id = :userId AND recipe_id <= (" +
+            "SELECT cutoff FROM (SELECT recipe_id AS cutoff FROM feed_entries WHERE user_id = :userId " +
+            "ORDER BY recipe_id DESC LIMIT 1 OFFSET :keep) t)", nativeQuery = true)
+    int trimUser(@Param("userId") Long userId, @Param("keep") int keep);
+}
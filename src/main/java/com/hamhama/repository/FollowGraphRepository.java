@@ -0,0 +1,65 @@
+package com.hamhama.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Bulk JDBC reads of the whole follow graph, for building FollowGraphService's in-memory snapshot.
+ * Results are streamed row by row rather than buffered whole by the driver.
+ */
+@Repository
+public class FollowGraphRepository {
+
+    /**
+     * Receives the edges of user_follows ordered by (follower_id, following_id).
+     */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(long followerId, long followingId);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FollowGraphRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return All user IDs in ascending order.
+     */
+    public long[] findAllUserIds() {
+        long[][] ids = {new long[1024]};
+        int[] count = {0};
+        jdbcTemplate.query(connection -> streaming(connection, "SELECT id FROM users ORDER BY id"), (RowCallbackHandler) rs -> {
+            if (count[0] == ids[0].length) {
+                ids[0] = Arrays.copyOf(ids[0], count[0] * 2);
+            }
+            ids[0][count[0]++] = rs.getLong(1);
+        });
+        return Arrays.copyOf(ids[0], count[0]);
+    }
+
+    public void forEachEdge(EdgeConsumer consumer) {
+        jdbcTemplate.query(connection -> streaming(connection,
+                        "SELECT follower_id, following_id FROM user_follows ORDER BY follower_id, following_id"),
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Connector/J ignores positive fetch sizes unless useCursorFetch is set and reads the whole result first;
+     * a forward-only, read-only statement with fetch size Integer.MIN_VALUE streams it instead. The connection
+     * can run nothing else until the result is consumed, so callbacks must not query.
+     */
+    private static PreparedStatement streaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+}
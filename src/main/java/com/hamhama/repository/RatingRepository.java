@@ -1,15 +1,38 @@
 package com.hamhama.repository;
 
 import com.hamhama.model.Rating;
-import com.hamhama.model.Recipe;
-import com.hamhama.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
-    Rating findByUserAndRecipe(User user, Recipe recipe);
+
+    /**
+     * Inserts or updates the user's rating in one statement, relying on uk_ratings_user_recipe.
+     * On conflict the old value is kept in previous_value (ON DUPLICATE KEY UPDATE assignments
+     * run left to right), a fresh insert leaves it at 0. The statement holds the row lock until
+     * commit, so concurrent ratings for the same user and recipe serialize instead of duplicating.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ratings (user_id, recipe_id, rating_value, previous_value) " +
+            "VALUES (:userId, :recipeId, :ratingValue, 0) " +
+            "ON DUPLICATE KEY UPDATE previous_value = rating_value, rating_value = :ratingValue", nativeQuery = true)
+    int upsertRating(@Param("userId") Long userId,
+                     @Param("recipeId") Long recipeId,
+                     @Param("ratingValue") int ratingValue);
+
+    // Unique-key point read of the row just written by upsertRating in the same transaction
+    @Query(value = "SELECT previous_value FROM ratings WHERE user_id = :userId AND recipe_id = :recipeId", nativeQuery = true)
+    Integer findPreviousValue(@Param("userId") Long userId, @Param("recipeId") Long recipeId);
+
+    // Locks the row so the value used for the aggregate delta is the one actually deleted
+    @Query(value = "SELECT rating_value FROM ratings WHERE user_id = :userId AND recipe_id = :recipeId FOR UPDATE", nativeQuery = true)
+    Integer findRatingValueForUpdate(@Param("userId") Long userId, @Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM ratings WHERE user_id = :userId AND recipe_id = :recipeId", nativeQuery = true)
+    int deleteByUserIdAndRecipeId(@Param("userId") Long userId, @Param("recipeId") Long recipeId);
 }
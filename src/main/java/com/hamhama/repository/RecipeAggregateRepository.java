@@ -0,0 +1,126 @@
+package com.hamhama.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access for verifying and repairing the denormalized recipe aggregates
+ * (rating count/sum/average/score, like count, comment count).
+ * Every query is bounded to an ID range so it runs as an index range scan.
+ */
+@Repository
+public class RecipeAggregateRepository {
+
+    /**
+     * Aggregate values for one recipe, either as stored on the row or as recomputed from the source tables.
+     */
+    public record RecipeAggregates(long recipeId, int ratingCount, long ratingSum, int likeCount, int commentCount) {
+    }
+
+    /**
+     * A drifted recipe: the values read from the row and the values it should hold.
+     */
+    public record AggregateFix(RecipeAggregates stored, RecipeAggregates actual, double averageRating, double rankingScore) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecipeAggregateRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<RecipeAggregates> findStoredAggregates(long fromId, long toId) {
+        return jdbcTemplate.query(
+                "SELECT id, rating_count, rating_sum, like_count, comment_count FROM recipes WHERE id BETWEEN ? AND ? ORDER BY id",
+                (rs, rowNum) -> new RecipeAggregates(rs.getLong(1), rs.getInt(2), rs.getLong(3), rs.getInt(4), rs.getInt(5)),
+                fromId, toId);
+    }
+
+    /**
+     * @return recipe ID -> {rating count, rating sum} for recipes in the range that have ratings.
+     */
+    public Map<Long, long[]> countRatings(long fromId, long toId) {
+        Map<Long, long[]> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT recipe_id, COUNT(*), SUM(rating_value) FROM ratings WHERE recipe_id BETWEEN ? AND ? GROUP BY recipe_id",
+                rs -> {
+                    result.put(rs.getLong(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                },
+                fromId, toId);
+        return result;
+    }
+
+    /**
+     * Locks the recipes in the range and returns recipe ID -> {stored rating count, stored rating sum}.
+     * Rating changes update the recipe row after writing the rating, so once these locks are held every
+     * committed rating is visible to a following plain read and every uncommitted one applies its delta later.
+     */
+    public Map<Long, long[]> lockStoredRatingAggregates(long fromId, long toId) {
+        Map<Long, long[]> result = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, rating_count, rating_sum FROM recipes WHERE id BETWEEN ? AND ? FOR UPDATE",
+                rs -> {
+                    result.put(rs.getLong(1), new long[]{rs.getLong(2), rs.getLong(3)});
+                },
+                fromId, toId);
+        return result;
+    }
+
+    /**
+     * Overwrites the rating aggregates of recipes locked by {@link #lockStoredRatingAggregates}, in one batch.
+     *
+     * @param rows {rating count, rating sum, average rating, ranking score, recipe ID} per recipe.
+     */
+    public void setRatingAggregates(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "UPDATE recipes SET rating_count = ?, rating_sum = ?, average_rating = ?, ranking_score = ? WHERE id = ?",
+                rows);
+    }
+
+    public Map<Long, Long> countLikes(long fromId, long toId) {
+        return countByRecipe("SELECT recipe_id, COUNT(*) FROM user_likes WHERE recipe_id BETWEEN ? AND ? GROUP BY recipe_id",
+                fromId, toId);
+    }
+
+    public Map<Long, Long> countComments(long fromId, long toId) {
+        return countByRecipe("SELECT recipe_id, COUNT(*) FROM comments WHERE recipe_id BETWEEN ? AND ? GROUP BY recipe_id",
+                fromId, toId);
+    }
+
+    /**
+     * Writes the corrected aggregates in one JDBC batch. Each UPDATE only applies if the row still holds
+     * the values that were read, so a concurrent increment is never overwritten (that row reports 0).
+     *
+     * @return per-fix update counts, in the order of {@code fixes}.
+     */
+    public int[] applyFixes(List<AggregateFix> fixes) {
+        List<Object[]> args = new ArrayList<>(fixes.size());
+        for (AggregateFix fix : fixes) {
+            RecipeAggregates actual = fix.actual();
+            RecipeAggregates stored = fix.stored();
+            args.add(new Object[]{
+                    actual.ratingCount(), actual.ratingSum(), fix.averageRating(), fix.rankingScore(),
+                    actual.likeCount(), actual.commentCount(),
+                    stored.recipeId(), stored.ratingCount(), stored.ratingSum(), stored.likeCount(), stored.commentCount()
+            });
+        }
+        return jdbcTemplate.batchUpdate(
+                "UPDATE recipes SET rating_count = ?, rating_sum = ?, average_rating = ?, ranking_score = ?, " +
+                        "like_count = ?, comment_count = ? " +
+                        "WHERE id = ? AND rating_count = ? AND rating_sum = ? AND like_count = ? AND comment_count = ?",
+                args);
+    }
+
+    private Map<Long, Long> countByRecipe(String sql, long fromId, long toId) {
+        Map<Long, Long> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getLong(1), rs.getLong(2));
+        }, fromId, toId);
+        return result;
+    }
+}
@@ -2,11 +2,16 @@ package com.hamhama.repository;
 
 import com.hamhama.model.Recipe;
 import com.hamhama.model.RecipeCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
 
@@ -34,4 +39,86 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
             "WHERE r.category = :category AND LOWER(i.name) LIKE LOWER(CONCAT('%', :ingredient, '%'))")
     List<Recipe> findByCategoryAndIngredientsNameContainingIgnoreCase(@Param("category") RecipeCategory category, @Param("ingredient") String ingredient);
 
-}
\ No newline at end of file
+    // --- Ranking ---
+    // Uses idx_recipes_ranking_score, so the listing is a single index range scan
+    List<Recipe> findAllByOrderByRankingScoreDescIdDesc(Pageable pageable);
+
+    /**
+     * Applies a rating change to the denormalized aggregates in a single atomic statement.
+     * MySQL evaluates single-table UPDATE assignments left to right, so average_rating and
+     * ranking_score are computed from the already incremented sum and count.
+     */
+    @Modifying
+    @Query(value = "UPDATE recipes SET " +
+            "rating_sum = rating_sum + :sumDelta, " +
+            "rating_count = rating_count + :countDelta, " +
+            "average_rating = COALESCE(rating_sum / NULLIF(rating_count, 0), 0), " +
+            "ranking_score = (:priorWeight * :priorMean + rating_sum) / (:priorWeight + rating_count) " +
+            "WHERE id = :recipeId", nativeQuery = true)
+    int applyRatingDelta(@Param("recipeId") Long recipeId,
+                         @Param("sumDelta") long sumDelta,
+                         @Param("countDelta") int countDelta,
+                         @Param("priorWeight") double priorWeight,
+                         @Param("priorMean") double priorMean);
+
+    @Modifying
+    @Query(value = "UPDATE recipes SET like_count = like_count + :delta WHERE id = :recipeId", nativeQuery = true)
+    int adjustLikeCount(@Param("recipeId") Long recipeId, @Param("delta") int delta);
+
+    // Account deletion: one like fewer on every recipe the user liked, before the like rows go
+    @Modifying
+    @Query(value = "UPDATE recipes r JOIN user_likes l ON l.recipe_id = r.id " +
+            "SET r.like_count = r.like_count - 1 WHERE l.user_id = :userId", nativeQuery = true)
+    int decrementLikeCountsOfLikesBy(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE recipes SET comment_count = comment_count + :delta WHERE id = :recipeId", nativeQuery = true)
+    int adjustCommentCount(@Param("recipeId") Long recipeId, @Param("delta") int delta);
+
+    // Global mean over every rating, or null when nothing has been rated yet
+    @Query(value = "SELECT SUM(rating_sum) / NULLIF(SUM(rating_count), 0) FROM recipes", nativeQuery = true)
+    Double findGlobalMeanRating();
+
+    @Query("SELECT MIN(r.id) FROM Recipe r")
+    Long findMinId();
+
+    @Query("SELECT MAX(r.id) FROM Recipe r")
+    Long findMaxId();
+
+    // Re-scores one ID range against a new prior; each call is its own short transaction
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE recipes SET ranking_score = (:priorWeight * :priorMean + rating_sum) / (:priorWeight + rating_count) " +
+            "WHERE id BETWEEN :fromId AND :toId", nativeQuery = true)
+    int rescoreRange(@Param("fromId") long fromId,
+                     @Param("toId") long toId,
+                     @Param("priorWeight") double priorWeight,
+                     @Param("priorMean") double priorMean);
+
+    // Loads recipes with their authors in one query (callers restore the order they need)
+    interface RecipeOwner {
+        Long getId();
+
+        Long getUserId();
+    }
+
+    // Ownership checks (see OwnershipEvaluator): reads the user_id column only, no entity or user is loaded
+    @Query("SELECT r.id AS id, r.user.id AS userId FROM Recipe r WHERE r.id = :id")
+    Optional<RecipeOwner> findOwnerById(@Param("id") Long id);
+
+    @Query("SELECT r FROM Recipe r LEFT JOIN FETCH r.user WHERE r.id IN :ids")
+    List<Recipe> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Newest recipe IDs below {@code before} from the authors the user follows that have more than
+     * {@code minFollowers} followers (their recipes are not fanned out to feeds and are read here instead).
+     */
+    @Query(value = "SELECT r.id FROM user_follows f " +
+            "JOIN users u ON u.id = f.following_id AND u.follower_count > :minFollowers " +
+            "JOIN recipes r ON r.user_id = f.following_id AND r.id < :before " +
+            "WHERE f.follower_id = :userId ORDER BY r.id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findIdsByFollowedAuthorsWithFollowersOver(@Param("userId") Long userId,
+                                                        @Param("minFollowers") int minFollowers,
+                                                        @Param("before") long before,
+                                                        @Param("limit") int limit);
+}
@@ -0,0 +1,106 @@
+package com.hamhama.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk JDBC access for the offline recommendation model: streaming the interaction history and
+ * replacing the stored recipe_similarities rows.
+ */
+@Repository
+public class RecommendationRepository {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    /**
+     * Receives one (user, recipe) interaction.
+     */
+    @FunctionalInterface
+    public interface InteractionConsumer {
+        void accept(long userId, long recipeId);
+    }
+
+    /**
+     * Receives one stored similarity row.
+     */
+    @FunctionalInterface
+    public interface SimilarityConsumer {
+        void accept(long recipeId, long neighborId, float score);
+    }
+
+    public record SimilarityRow(long recipeId, long neighborId, float score) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RecommendationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Streams every distinct (user, recipe) pair where the user liked the recipe or rated it at least
+     * {@code minRating}, grouped by user and in a fixed order within a user: most recently liked first, then
+     * pairs that are only rated (ratings carry no timestamp), newest recipe first on ties.
+     */
+    public void forEachInteraction(int minRating, InteractionConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = streaming(connection,
+                    "SELECT user_id, recipe_id FROM (" +
+                            "SELECT user_id, recipe_id, liked_at AS interacted_at FROM user_likes " +
+                            "UNION ALL SELECT user_id, recipe_id, NULL FROM ratings WHERE rating_value >= ? AND user_id IS NOT NULL" +
+                            ") i GROUP BY user_id, recipe_id " +
+                            "ORDER BY user_id, MAX(interacted_at) IS NULL, MAX(interacted_at) DESC, recipe_id DESC");
+            statement.setInt(1, minRating);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2)));
+    }
+
+    /**
+     * Streams the stored neighbours, best first per recipe.
+     */
+    public void forEachSimilarity(SimilarityConsumer consumer) {
+        jdbcTemplate.query(connection -> streaming(connection,
+                        "SELECT recipe_id, neighbor_id, score FROM recipe_similarities ORDER BY recipe_id, score DESC"),
+                (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1), rs.getLong(2), rs.getFloat(3)));
+    }
+
+    /**
+     * Replaces all stored similarities; call inside a transaction so readers switch models at commit.
+     */
+    public void replaceSimilarities(List<SimilarityRow> rows) {
+        jdbcTemplate.update("DELETE FROM recipe_similarities");
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (SimilarityRow row : rows) {
+            batch.add(new Object[]{row.recipeId(), row.neighborId(), row.score()});
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                insertBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch);
+        }
+    }
+
+    /**
+     * Forward-only, read-only with fetch size Integer.MIN_VALUE: Connector/J then streams rows instead of
+     * buffering the whole result (positive fetch sizes need useCursorFetch). Callbacks must not query.
+     */
+    private static PreparedStatement streaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        return statement;
+    }
+
+    private void insertBatch(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO recipe_similarities (recipe_id, neighbor_id, score) VALUES (?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,115 @@
+package com.hamhama.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access for removing everything a user wrote, one bounded chunk at a time.
+ * Each method touches at most {@code limit} of the user's rows so callers can commit between chunks.
+ * Chunks are read with locking reads (FOR UPDATE), so the rows counted against the recipe aggregates are
+ * exactly the ones deleted: a concurrent unlike, unrate or comment delete either finished first and the row is
+ * not returned, or waits for the chunk to commit and then finds nothing to remove.
+ */
+@Repository
+public class UserContentPurgeRepository {
+
+    /**
+     * A comment to delete and the recipe whose comment count it belongs to.
+     */
+    public record CommentRow(long id, long recipeId, String path) {
+    }
+
+    /**
+     * Per-recipe totals of the rows a chunk removes.
+     */
+    public record RecipeDelta(long recipeId, int count, long sum) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public UserContentPurgeRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<CommentRow> findCommentChunk(long userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, recipe_id, path FROM comments WHERE user_id = :userId ORDER BY id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("limit", limit),
+                (rs, rowNum) -> new CommentRow(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+    }
+
+    /**
+     * Returns the given comments plus every reply below them (any author), using one range per thread
+     * on idx_comments_recipe_path.
+     */
+    public List<CommentRow> findWithDescendants(List<CommentRow> roots) {
+        List<CommentRow> result = new ArrayList<>();
+        StringBuilder where = new StringBuilder();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (int i = 0; i < roots.size(); i++) {
+            CommentRow root = roots.get(i);
+            if (root.path() == null) {
+                result.add(root); // Not threaded yet, so it cannot have replies
+                continue;
+            }
+            if (!where.isEmpty()) {
+                where.append(" OR ");
+            }
+            where.append("(recipe_id = :r").append(i).append(" AND path LIKE :p").append(i).append(')');
+            params.addValue("r" + i, root.recipeId()).addValue("p" + i, root.path() + "%");
+        }
+        if (!where.isEmpty()) {
+            result.addAll(jdbcTemplate.query("SELECT id, recipe_id, path FROM comments WHERE " + where + " FOR UPDATE", params,
+                    (rs, rowNum) -> new CommentRow(rs.getLong(1), rs.getLong(2), rs.getString(3))));
+        }
+        return result;
+    }
+
+    public int deleteComments(Collection<Long> ids) {
+        return jdbcTemplate.update("DELETE FROM comments WHERE id IN (:ids)", Map.of("ids", ids));
+    }
+
+    public List<RecipeDelta> findRatingChunk(long userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT recipe_id, COUNT(*), SUM(rating_value) FROM ratings WHERE user_id = :userId " +
+                        "GROUP BY recipe_id ORDER BY recipe_id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("limit", limit),
+                (rs, rowNum) -> new RecipeDelta(rs.getLong(1), rs.getInt(2), rs.getLong(3)));
+    }
+
+    public int deleteRatings(long userId, Collection<Long> recipeIds) {
+        return jdbcTemplate.update("DELETE FROM ratings WHERE user_id = :userId AND recipe_id IN (:recipeIds)",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("recipeIds", recipeIds));
+    }
+
+    public List<RecipeDelta> findLikeChunk(long userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT recipe_id, COUNT(*) FROM user_likes WHERE user_id = :userId " +
+                        "GROUP BY recipe_id ORDER BY recipe_id LIMIT :limit FOR UPDATE",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("limit", limit),
+                (rs, rowNum) -> new RecipeDelta(rs.getLong(1), rs.getInt(2), 0));
+    }
+
+    public int deleteLikes(long userId, Collection<Long> recipeIds) {
+        return jdbcTemplate.update("DELETE FROM user_likes WHERE user_id = :userId AND recipe_id IN (:recipeIds)",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("recipeIds", recipeIds));
+    }
+
+    /**
+     * @return recipe ID -> number of rows, in first-seen order.
+     */
+    public static Map<Long, Integer> countByRecipe(Collection<CommentRow> rows) {
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (CommentRow row : rows) {
+            counts.merge(row.recipeId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,50 @@
+package com.hamhama.repository;
+
+import com.hamhama.dto.UserSummaryDTO;
+import com.hamhama.model.UserFollow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserFollowRepository extends JpaRepository<UserFollow, UserFollow.Key> {
+
+    // --- Followers of a user, newest first (idx_user_follows_following_time) ---
+
+    @Query("SELECT new com.hamhama.dto.UserSummaryDTO(u.id, u.username, f.followedAt) " +
+            "FROM UserFollow f JOIN User u ON u.id = f.followerId " +
+            "WHERE f.followingId = :userId ORDER BY f.followedAt DESC, f.followerId DESC")
+    List<UserSummaryDTO> findFollowersFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.hamhama.dto.UserSummaryDTO(u.id, u.username, f.followedAt) " +
+            "FROM UserFollow f JOIN User u ON u.id = f.followerId " +
+            "WHERE f.followingId = :userId " +
+            "AND (f.followedAt < :followedAt OR (f.followedAt = :followedAt AND f.followerId < :id)) " +
+            "ORDER BY f.followedAt DESC, f.followerId DESC")
+    List<UserSummaryDTO> findFollowersBefore(@Param("userId") Long userId,
+                                             @Param("followedAt") LocalDateTime followedAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    // --- Users a user follows, newest first (idx_user_follows_follower_time) ---
+
+    @Query("SELECT new com.hamhama.dto.UserSummaryDTO(u.id, u.username, f.followedAt) " +
+            "FROM UserFollow f JOIN User u ON u.id = f.followingId " +
+            "WHERE f.followerId = :userId ORDER BY f.followedAt DESC, f.followingId DESC")
+    List<UserSummaryDTO> findFollowingFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.hamhama.dto.UserSummaryDTO(u.id, u.username, f.followedAt) " +
+            "FROM UserFollow f JOIN User u ON u.id = f.followingId " +
+            "WHERE f.followerId = :userId " +
+            "AND (f.followedAt < :followedAt OR (f.followedAt = :followedAt AND f.followingId < :id)) " +
+            "ORDER BY f.followedAt DESC, f.followingId DESC")
+    List<UserSummaryDTO> findFollowingBefore(@Param("userId") Long userId,
+                                             @Param("followedAt") LocalDateTime followedAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package com.hamhama.repository;
+
+import com.hamhama.dto.RecipeSummaryDTO;
+import com.hamhama.model.UserLike;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserLikeRepository extends JpaRepository<UserLike, UserLike.Key> {
+
+    // --- Recipes liked by a user, newest likes first (idx_user_likes_user_time) ---
+
+    @Query("SELECT new com.hamhama.dto.RecipeSummaryDTO(r.id, r.name, r.category, r.averageRating, l.likedAt) " +
+            "FROM UserLike l JOIN Recipe r ON r.id = l.recipeId " +
+            "WHERE l.userId = :userId ORDER BY l.likedAt DESC, l.recipeId DESC")
+    List<RecipeSummaryDTO> findLikedFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.hamhama.dto.RecipeSummaryDTO(r.id, r.name, r.category, r.averageRating, l.likedAt) " +
+            "FROM UserLike l JOIN Recipe r ON r.id = l.recipeId " +
+            "WHERE l.userId = :userId " +
+            "AND (l.likedAt < :likedAt OR (l.likedAt = :likedAt AND l.recipeId < :id)) " +
+            "ORDER BY l.likedAt DESC, l.recipeId DESC")
+    List<RecipeSummaryDTO> findLikedBefore(@Param("userId") Long userId,
+                                           @Param("likedAt") LocalDateTime likedAt,
+                                           @Param("id") Long id,
+                                           Pageable pageable);
+
+    @Query("SELECT l.recipeId FROM UserLike l WHERE l.userId = :userId ORDER BY l.likedAt DESC, l.recipeId DESC")
+    List<Long> findRecentLikedRecipeIds(@Param("userId") Long userId, Pageable pageable);
+
+    // Which of a page of recipes the user liked: one lookup on the (user_id, recipe_id) unique key
+    @Query("SELECT l.recipeId FROM UserLike l WHERE l.userId = :userId AND l.recipeId IN :recipeIds")
+    List<Long> findLikedRecipeIds(@Param("userId") Long userId, @Param("recipeIds") Collection<Long> recipeIds);
+
+    // Index-only count on the (user_id, recipe_id) unique key
+    long countByUserId(Long userId);
+}
@@ -1,10 +1,15 @@
 package com.hamhama.repository;
 
+import com.hamhama.dto.UserSuggestionDTO;
 import com.hamhama.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository; // Add Repository annotation
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,9 +24,115 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u.blockedUsers FROM User u WHERE u.id = :userId")
     List<User> findBlockedUsers(Long userId);
 
+    @Query(value = "SELECT blocked_user_id FROM blocked_users WHERE user_id = :userId", nativeQuery = true)
+    List<Long> findBlockedUserIds(@Param("userId") Long userId);
+
     // Add findByEmail if login via email is needed
     Optional<User> findByEmail(String email);
 
     boolean existsByUsername(String username); // Useful for registration check
     boolean existsByEmail(String email);      // Useful for registration check
-}
\ No newline at end of file
+
+    // --- Relationship writes: one idempotent statement each, without loading the User collections ---
+    // INSERT IGNORE relies on the unique pair keys of the join tables; both return the number of rows changed (0 or 1)
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_follows (follower_id, following_id) VALUES (:followerId, :followingId)", nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_follows WHERE follower_id = :followerId AND following_id = :followingId", nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.username = :username")
+    int updatePassword(@Param("username") String username, @Param("password") String password);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_likes (user_id, recipe_id) VALUES (:userId, :recipeId)", nativeQuery = true)
+    int insertLike(@Param("userId") Long userId, @Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_likes WHERE user_id = :userId AND recipe_id = :recipeId", nativeQuery = true)
+    int deleteLike(@Param("userId") Long userId, @Param("recipeId") Long recipeId);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO blocked_users (user_id, blocked_user_id) VALUES (:userId, :blockedUserId)", nativeQuery = true)
+    int insertBlock(@Param("userId") Long userId, @Param("blockedUserId") Long blockedUserId);
+
+    @Modifying
+    @Query(value = "DELETE FROM blocked_users WHERE user_id = :userId AND blocked_user_id = :blockedUserId", nativeQuery = true)
+    int deleteBlock(@Param("userId") Long userId, @Param("blockedUserId") Long blockedUserId);
+
+    // --- Denormalized follow counts (NULL + delta stays NULL until the backfill computes the row) ---
+
+    @Modifying
+    @Query(value = "UPDATE users SET follower_count = follower_count + :delta WHERE id = :userId", nativeQuery = true)
+    int adjustFollowerCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE users SET following_count = following_count + :delta WHERE id = :userId", nativeQuery = true)
+    int adjustFollowingCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Query(value = "SELECT COUNT(*) FROM user_follows WHERE following_id = :userId", nativeQuery = true)
+    int countFollowers(@Param("userId") Long userId);
+
+    @Query(value = "SELECT COUNT(*) FROM user_follows WHERE follower_id = :userId", nativeQuery = true)
+    int countFollowing(@Param("userId") Long userId);
+
+    /**
+     * Computes the counts of rows that predate the columns. Runs in chunks; returns rows updated.
+     */
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+            "u.follower_count = (SELECT COUNT(*) FROM user_follows f WHERE f.following_id = u.id), " +
+            "u.following_count = (SELECT COUNT(*) FROM user_follows f WHERE f.follower_id = u.id) " +
+            "WHERE u.follower_count IS NULL OR u.following_count IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillFollowCounts(@Param("limit") int limit);
+
+    // --- Account deletion: counterpart counts of every edge the user is part of, before the rows go ---
+
+    @Modifying
+    @Query(value = "UPDATE users u JOIN user_follows f ON f.following_id = u.id " +
+            "SET u.follower_count = u.follower_count - 1 WHERE f.follower_id = :userId", nativeQuery = true)
+    int decrementFollowerCountsOfFollowedBy(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE users u JOIN user_follows f ON f.follower_id = u.id " +
+            "SET u.following_count = u.following_count - 1 WHERE f.following_id = :userId", nativeQuery = true)
+    int decrementFollowingCountsOfFollowersOf(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_follows WHERE follower_id = :userId OR following_id = :userId", nativeQuery = true)
+    int deleteAllFollowsOf(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM blocked_users WHERE user_id = :userId OR blocked_user_id = :userId", nativeQuery = true)
+    int deleteAllBlocksOf(@Param("userId") Long userId);
+
+    @Query(value = "SELECT following_id FROM user_follows WHERE follower_id = :userId", nativeQuery = true)
+    List<Long> findFollowingIds(@Param("userId") Long userId);
+
+    @Query(value = "SELECT user_id FROM blocked_users WHERE blocked_user_id = :userId", nativeQuery = true)
+    List<Long> findBlockerIds(@Param("userId") Long userId);
+
+    @Query("SELECT u.followerCount FROM User u WHERE u.id = :userId")
+    Integer findFollowerCount(@Param("userId") Long userId);
+
+    @Query(value = "SELECT follower_id FROM user_follows WHERE following_id = :userId", nativeQuery = true)
+    List<Long> findFollowerIds(@Param("userId") Long userId);
+
+    @Query("SELECT f.followerId FROM UserFollow f WHERE f.followingId = :userId")
+    List<Long> findFollowerIdsLimited(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM UserFollow f " +
+            "WHERE f.followerId = :followerId AND f.followingId = :followingId")
+    boolean existsFollow(@Param("followerId") Long followerId, @Param("followingId") Long followingId);
+
+    // Privacy flag without loading the user; empty if the user does not exist
+    @Query("SELECT COALESCE(u.isPrivate, false) FROM User u WHERE u.id = :userId")
+    Optional<Boolean> findIsPrivateById(@Param("userId") Long userId);
+
+    @Query("SELECT new com.hamhama.dto.UserSuggestionDTO(u.id, u.username) FROM User u WHERE u.id IN :ids")
+    List<UserSuggestionDTO> findSuggestionsByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,65 @@
+package com.hamhama.security;
+
+import com.hamhama.model.Role;
+import com.hamhama.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable principal of a JWT-authenticated request: ID, username and roles only.
+ * <p>
+ * Safe to share between requests and threads (see PrincipalCache). Services that need the User entity, e.g. to
+ * set an association, take {@code userRepository.getReferenceById(getId())} instead of loading the row.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final Set<Role> roles;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, Set<Role> roles) {
+        this.id = id;
+        this.username = username;
+        this.roles = Set.copyOf(roles);
+        this.authorities = this.roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList();
+    }
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRoles());
+    }
+
+    public Long getId() { return id; }
+
+    public Set<Role> getRoles() { return roles; }
+
+    public boolean hasRole(Role role) {
+        return roles.contains(role);
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null; // Never needed after the token was issued
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{id=" + id + ", username='" + username + "', roles=" + roles + '}';
+    }
+}
@@ -10,8 +10,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -26,7 +24,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger filterLogger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService; // Use the UserDetailsService interface
+    private final PrincipalCache principalCache; // Immutable principals, usually without a query
 
     @Override
     protected void doFilterInternal(
@@ -49,16 +47,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterLogger.trace("Extracted JWT: {}", jwt); // Be careful logging tokens in production
 
         try {
-            username = jwtUtil.extractUsername(jwt);
+            // Signature and expiry are checked once here (or skipped for a token verified recently)
+            VerifiedToken token = jwtUtil.verify(jwt);
+            username = token.username();
             filterLogger.trace("Username extracted from JWT: {}", username);
 
             // 2. Check if username is valid and user is not already authenticated
             if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-                filterLogger.trace("UserDetails loaded for username: {}", username);
+                AuthenticatedUser userDetails = principalCache.get(username);
+                filterLogger.trace("Principal resolved for username: {}", username);
 
-                // 3. Validate the token against the UserDetails
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                // 3. Match the verified token against the principal
+                if (username.equals(userDetails.getUsername())) {
                     filterLogger.trace("JWT token is valid for user: {}", username);
                     // Create authentication token
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
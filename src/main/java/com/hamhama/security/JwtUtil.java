@@ -1,5 +1,6 @@
 package com.hamhama.security;
 
+import com.hamhama.util.LruCache;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -12,9 +13,13 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -24,25 +29,65 @@ public class JwtUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
     private final Key secretKey;
     private final long jwtExpirationMs;
     // private final long refreshTokenExpirationMs; // Optional: if using refresh tokens
 
+    // Recently verified tokens by SHA-256 digest (the raw bearer tokens are not kept); null when disabled
+    private final LruCache<String, VerifiedToken> verifiedTokens;
+
     // Inject values from application.properties
     public JwtUtil(@Value("${jwt.secret.key}") String secret,
-                   @Value("${jwt.expiration.ms}") long jwtExpirationMs
+                   @Value("${jwt.expiration.ms}") long jwtExpirationMs,
+                   @Value("${jwt.verified-cache.size:10000}") int verifiedCacheSize
             /*@Value("${jwt.refresh.token.expiration.ms}") long refreshTokenExpirationMs*/) {
         this.secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
         this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedTokens = verifiedCacheSize > 0 ? new LruCache<>(verifiedCacheSize) : null;
         // this.refreshTokenExpirationMs = refreshTokenExpirationMs;
     }
 
+    /**
+     * Checks signature and expiry of the token once and returns its claims. A token verified before is only
+     * looked up by digest and checked for expiry, without parsing or HMAC.
+     *
+     * @throws RuntimeException if the token is malformed, badly signed or expired.
+     */
+    public VerifiedToken verify(String token) {
+        String digest = verifiedTokens != null ? digest(token) : null;
+        VerifiedToken verified = digest != null ? verifiedTokens.get(digest) : null;
+        if (verified == null) {
+            Claims claims = extractAllClaims(token); // Rejects expired tokens as well
+            Date expiration = claims.getExpiration();
+            verified = new VerifiedToken(claims.getSubject(), claims.get("roles", String.class),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+            if (digest != null) {
+                verifiedTokens.put(digest, verified);
+            }
+        }
+        if (verified.isExpired(System.currentTimeMillis())) {
+            if (digest != null) {
+                verifiedTokens.remove(digest);
+            }
+            throw new RuntimeException("Expired JWT token");
+        }
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(verify(token).expiresAt());
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -64,13 +109,8 @@ public class JwtUtil {
         }
     }
 
-    private Boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (Exception e) {
-            // If expiration cannot be extracted, consider the token invalid/expired
-            return true;
-        }
+    private static String digest(String token) {
+        return HexFormat.of().formatHex(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
     }
 
     // Generate token FOR a specific user (UserDetails contains username, roles etc.)
@@ -106,8 +146,7 @@ public class JwtUtil {
     // Validate token against UserDetails
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return verify(token).username().equals(userDetails.getUsername()); // verify() checks expiry
         } catch (Exception e) {
             logger.error("JWT validation error: {}", e.getMessage());
             return false;
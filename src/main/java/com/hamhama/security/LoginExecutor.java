@@ -0,0 +1,105 @@
+package com.hamhama.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password logins (BCrypt verification, plus a rehash when the configured cost changed) on a small
+ * dedicated pool instead of the request threads.
+ * <p>
+ * The pool has {@code auth.login.threads} threads (default: half the cores) and a queue of
+ * {@code auth.login.queue-capacity} logins; beyond that logins are rejected at once, so a credential-stuffing
+ * burst costs at most those cores and the rest of the API keeps serving. Outcomes, verification latency and the
+ * queue length are published as {@code auth.login.*} metrics.
+ */
+@Component
+public class LoginExecutor {
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolExecutor executor;
+    private final Timer duration;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter rejected;
+
+    public LoginExecutor(AuthenticationManager authenticationManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${auth.login.threads:0}") int threads,
+                         @Value("${auth.login.queue-capacity:64}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.duration = Timer.builder("auth.login.duration")
+                .description("Time to verify a login password, including a rehash")
+                .register(meterRegistry);
+        this.succeeded = loginCounter(meterRegistry, "success");
+        this.failed = loginCounter(meterRegistry, "failure");
+        this.rejected = loginCounter(meterRegistry, "rejected");
+        Gauge.builder("auth.login.queued", executor, pool -> pool.getQueue().size())
+                .description("Logins waiting for a hashing thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the login on the hashing pool.
+     *
+     * @return Completes with the authentication, or exceptionally with the AuthenticationException.
+     * @throws RejectedExecutionException if the pool and its queue are full.
+     */
+    public CompletableFuture<Authentication> authenticate(Authentication request) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    Authentication authentication = authenticationManager.authenticate(request);
+                    succeeded.increment();
+                    return authentication;
+                } catch (AuthenticationException e) {
+                    failed.increment();
+                    throw e;
+                } finally {
+                    duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Counter loginCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.login.attempts")
+                .description("Password logins by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
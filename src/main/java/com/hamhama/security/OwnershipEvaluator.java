@@ -0,0 +1,81 @@
+package com.hamhama.security;
+
+import com.hamhama.repository.CommentRepository;
+import com.hamhama.repository.CommentRepository.CommentOwner;
+import com.hamhama.repository.RecipeRepository;
+import com.hamhama.repository.RecipeRepository.RecipeOwner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Ownership checks for {@code @PreAuthorize}, e.g. {@code hasRole('ADMIN') or @ownership.ownsRecipe(#id)}.
+ * <p>
+ * Each check reads only the owner's user_id through a projection, compared with the ID of the authenticated
+ * principal. Lookups are memoized in the current request's attributes, so the guarded method body can take the
+ * same row (existence, recipe, thread path) from {@link #recipe} / {@link #comment} without another query.
+ * Outside a web request nothing is memoized.
+ */
+@Component("ownership")
+@RequiredArgsConstructor
+public class OwnershipEvaluator {
+
+    private static final String RECIPE_KEY = OwnershipEvaluator.class.getName() + ".recipe.";
+    private static final String COMMENT_KEY = OwnershipEvaluator.class.getName() + ".comment.";
+
+    private final RecipeRepository recipeRepository;
+    private final CommentRepository commentRepository;
+
+    public boolean ownsRecipe(Long recipeId) {
+        return recipe(recipeId).map(RecipeOwner::getUserId).filter(this::isCurrentUser).isPresent();
+    }
+
+    public boolean ownsComment(Long commentId) {
+        return comment(commentId).map(CommentOwner::getUserId).filter(this::isCurrentUser).isPresent();
+    }
+
+    /**
+     * @return The recipe's ID and owner, empty if there is no such recipe.
+     */
+    public Optional<RecipeOwner> recipe(Long recipeId) {
+        return memoized(RECIPE_KEY, recipeId, recipeRepository::findOwnerById);
+    }
+
+    /**
+     * @return The comment's owner, recipe and thread path, empty if there is no such comment.
+     */
+    public Optional<CommentOwner> comment(Long commentId) {
+        return memoized(COMMENT_KEY, commentId, commentRepository::findOwnerById);
+    }
+
+    private boolean isCurrentUser(Long userId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                && Objects.equals(user.getId(), userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<T> memoized(String prefix, Long id, Function<Long, Optional<T>> loader) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return loader.apply(id);
+        }
+        String key = prefix + id;
+        Optional<T> row = (Optional<T>) attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+        if (row == null) {
+            row = loader.apply(id);
+            attributes.setAttribute(key, row, RequestAttributes.SCOPE_REQUEST);
+        }
+        return row;
+    }
+}
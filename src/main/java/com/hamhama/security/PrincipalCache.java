@@ -0,0 +1,79 @@
+package com.hamhama.security;
+
+import com.hamhama.model.User;
+import com.hamhama.repository.UserRepository;
+import com.hamhama.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Principals of JWT-authenticated requests by username, so most requests authenticate without a query.
+ * <p>
+ * Entries live in an LRU of {@code principal-cache.users} entries for at most {@code principal-cache.ttl-ms};
+ * UserService evicts them when a username or roles change or the user is deleted. The TTL only bounds
+ * staleness for changes made outside the application.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final LruCache<String, Entry> principals;
+    private final long ttlMs;
+
+    // Bumped on every committed change; a principal loaded across a change is used once but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private record Entry(AuthenticatedUser principal, long expiresAt) {
+    }
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${principal-cache.users:10000}") int cachedUsers,
+                          @Value("${principal-cache.ttl-ms:300000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.principals = new LruCache<>(cachedUsers);
+        this.ttlMs = Math.max(0, ttlMs);
+    }
+
+    /**
+     * @throws UsernameNotFoundException if no user has this username.
+     */
+    public AuthenticatedUser get(String username) {
+        long now = System.currentTimeMillis();
+        Entry entry = principals.get(username);
+        if (entry != null && entry.expiresAt() > now) {
+            return entry.principal();
+        }
+        long loadedAt = generation.get();
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+        AuthenticatedUser principal = AuthenticatedUser.of(user);
+        if (generation.get() == loadedAt) {
+            principals.put(username, new Entry(principal, now + ttlMs));
+        }
+        return principal;
+    }
+
+    /**
+     * Drops the cached principal of the username (again once the transaction completes). Call with the old
+     * username when it changes.
+     */
+    public void userChanged(String username) {
+        principals.remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    principals.remove(username);
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.hamhama.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limits for endpoints that call out to Gemini, per user (or per client IP when anonymous).
+ * <p>
+ * Rules come from {@code rate-limit.rules}, separated by ';', each "METHOD /path/pattern burst per-minute",
+ * e.g. {@code POST /api/ingredients/*}{@code /substitutes 5 10}. Each bucket is a single AtomicLong holding the
+ * GCRA "theoretical arrival time": a request is allowed if advancing it by one emission interval stays within the
+ * burst, and the new value is published with one CAS, so buckets need no locks and no refill timer. Buckets live in
+ * a ConcurrentHashMap bounded by {@code rate-limit.max-buckets}; idle buckets (already full again) are swept when
+ * it grows past the bound. Requests not matching a rule only pay for the method and path comparison.
+ * Runs inside the security chain after JwtAuthenticationFilter, so the user is known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final List<Rule> rules;
+    private final int maxBuckets;
+    private final ConcurrentHashMap<BucketKey, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private record Rule(int index, String method, PathPattern pattern, int burst, long intervalNanos) {
+    }
+
+    private record BucketKey(int rule, Long userId, String clientIp) {
+    }
+
+    public RateLimitFilter(@Value("${rate-limit.rules:}") String rules,
+                           @Value("${rate-limit.max-buckets:100000}") int maxBuckets) {
+        this.rules = parseRules(rules);
+        this.maxBuckets = Math.max(1, maxBuckets);
+        log.info("Rate limiting {} route(s)", this.rules.size());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return rules.isEmpty() || findRule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Rule rule = findRule(request);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        AtomicLong bucket = bucketFor(rule, request);
+        long now = System.nanoTime();
+        long tolerance = rule.intervalNanos() * rule.burst(); // Arrival time may run this far ahead of now
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + rule.intervalNanos();
+            long ahead = next - now;
+            if (ahead > tolerance) {
+                long retryAfterNanos = ahead - tolerance;
+                reject(request, response, rule, retryAfterNanos);
+                return;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                response.setHeader("X-RateLimit-Limit", Integer.toString(rule.burst()));
+                response.setHeader("X-RateLimit-Remaining", Long.toString((tolerance - ahead) / rule.intervalNanos()));
+                response.setHeader("X-RateLimit-Reset", Long.toString(toSeconds(ahead))); // Until the bucket is full
+                break;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private Rule findRule(HttpServletRequest request) {
+        String method = request.getMethod();
+        PathContainer path = null;
+        for (Rule rule : rules) {
+            if (rule.method().equals(method)) {
+                if (path == null) {
+                    path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+                }
+                if (rule.pattern().matches(path)) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    private AtomicLong bucketFor(Rule rule, HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        BucketKey key = authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? new BucketKey(rule.index(), user.getId(), null)
+                : new BucketKey(rule.index(), null, request.getRemoteAddr());
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            sweep();
+        }
+        // A full bucket: the theoretical arrival time lies in the past by the whole burst
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime() - rule.intervalNanos() * rule.burst()));
+    }
+
+    /**
+     * Drops buckets that refilled completely (equivalent to a new one). If every bucket is active, drops
+     * arbitrary ones until the map is under the bound again, which only forgives those clients some tokens.
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.get() <= now);
+            Iterator<Map.Entry<BucketKey, AtomicLong>> overflow = buckets.entrySet().iterator();
+            while (buckets.size() >= maxBuckets && overflow.hasNext()) {
+                overflow.next();
+                overflow.remove();
+            }
+            log.debug("Rate limit buckets swept, {} left", buckets.size());
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Rule rule, long retryAfterNanos) throws IOException {
+        log.warn("Rate limit exceeded for {} {} by {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("X-RateLimit-Limit", Integer.toString(rule.burst()));
+        response.setHeader("X-RateLimit-Remaining", "0");
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(toSeconds(retryAfterNanos)));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Too many requests, please retry later");
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static List<Rule> parseRules(String spec) {
+        List<Rule> parsed = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return parsed;
+        }
+        PathPatternParser parser = new PathPatternParser();
+        for (String entry : spec.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split("\\s+");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Rate limit rule must be 'METHOD /pattern burst per-minute': " + entry.trim());
+            }
+            int burst = Integer.parseInt(parts[2]);
+            int perMinute = Integer.parseInt(parts[3]);
+            if (burst < 1 || perMinute < 1) {
+                throw new IllegalArgumentException("Rate limit burst and rate must be positive: " + entry.trim());
+            }
+            parsed.add(new Rule(parsed.size(), parts[0].toUpperCase(), parser.parse(parts[1]), burst,
+                    TimeUnit.MINUTES.toNanos(1) / perMinute));
+        }
+        return List.copyOf(parsed);
+    }
+}
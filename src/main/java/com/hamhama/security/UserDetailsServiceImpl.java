@@ -4,6 +4,7 @@ import com.hamhama.model.User;
 import com.hamhama.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,7 +12,7 @@ import org.springframework.transaction.annotation.Transactional; // Import Trans
 
 @Service
 @RequiredArgsConstructor // Lombok for constructor injection
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
@@ -32,4 +33,18 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         // Spring Security will use the getAuthorities(), getPassword(), etc. methods from the User class.
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * Stores the password re-encoded after a successful login whose hash used a different BCrypt cost
+     * than {@code security.bcrypt.strength}; called by DaoAuthenticationProvider on the login executor.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
+}
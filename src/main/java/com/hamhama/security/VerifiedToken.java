@@ -0,0 +1,15 @@
+package com.hamhama.security;
+
+/**
+ * Claims of a JWT whose signature and expiry were checked by JwtUtil#verify.
+ *
+ * @param username  Subject of the token.
+ * @param roles     Comma-separated authorities at issue time (informational; the principal's roles are used).
+ * @param expiresAt Expiry in epoch milliseconds.
+ */
+public record VerifiedToken(String username, String roles, long expiresAt) {
+
+    public boolean isExpired(long nowMs) {
+        return expiresAt <= nowMs;
+    }
+}
@@ -0,0 +1,209 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.AggregateRepairStatus;
+import com.hamhama.repository.RecipeAggregateRepository;
+import com.hamhama.repository.RecipeAggregateRepository.AggregateFix;
+import com.hamhama.repository.RecipeAggregateRepository.RecipeAggregates;
+import com.hamhama.repository.RecipeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Verifies and repairs the denormalized recipe aggregates (ratings, likes, comments).
+ * <p>
+ * The recipes table is split into ID ranges that are processed in parallel on a bounded fork-join pool.
+ * Each range runs in its own short transaction: the stored values and the GROUP BY counts are read from
+ * one snapshot, drifted rows are fixed in a single JDBC batch, and rows changed concurrently are skipped.
+ * Nothing is locked beyond the drifted rows of the range being fixed.
+ */
+@Service
+public class AggregateRepairService {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregateRepairService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeAggregateRepository aggregateRepository;
+    private final RecipeRankingService recipeRankingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int rangeSize;
+
+    private final AtomicReference<RepairRun> currentRun = new AtomicReference<>();
+
+    public AggregateRepairService(RecipeRepository recipeRepository,
+                                  RecipeAggregateRepository aggregateRepository,
+                                  RecipeRankingService recipeRankingService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${aggregates.repair.parallelism:4}") int parallelism,
+                                  @Value("${aggregates.repair.range-size:1000}") int rangeSize) {
+        this.recipeRepository = recipeRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.recipeRankingService = recipeRankingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Bounded so the job never takes more than `parallelism` connections away from request handling
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    /**
+     * Starts a repair run in the background.
+     *
+     * @return The status of the newly started run.
+     * @throws IllegalStateException if a run is already in progress.
+     */
+    public AggregateRepairStatus startRepair() {
+        RepairRun previous = currentRun.get();
+        if (previous != null && previous.isRunning()) {
+            throw new IllegalStateException("An aggregate repair is already running");
+        }
+
+        Long minId = recipeRepository.findMinId();
+        Long maxId = recipeRepository.findMaxId();
+        List<long[]> ranges = new ArrayList<>();
+        if (minId != null && maxId != null) {
+            for (long from = minId; from <= maxId; from += rangeSize) {
+                ranges.add(new long[]{from, Math.min(from + rangeSize - 1, maxId)});
+            }
+        }
+
+        RepairRun run = new RepairRun(ranges.size());
+        if (!currentRun.compareAndSet(previous, run)) {
+            throw new IllegalStateException("An aggregate repair is already running");
+        }
+        log.info("Starting aggregate repair over {} ID ranges (IDs {}..{})", ranges.size(), minId, maxId);
+
+        CompletableFuture<?>[] tasks = ranges.stream()
+                .map(range -> CompletableFuture.runAsync(() -> repairRange(run, range[0], range[1]), pool))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            run.finish(error == null && run.rangesFailed.get() == 0 ? "COMPLETED" : "FAILED");
+            log.info("Aggregate repair {}: scanned {}, drifted {}, fixed {}, skipped {}", run.state,
+                    run.recipesScanned.get(), run.driftedRecipes.get(), run.fixedRecipes.get(), run.skippedRecipes.get());
+        });
+        return run.toStatus();
+    }
+
+    /**
+     * @return Progress of the current or last run, or an IDLE status if none was started.
+     */
+    public AggregateRepairStatus getStatus() {
+        RepairRun run = currentRun.get();
+        return run != null ? run.toStatus() : AggregateRepairStatus.builder().state("IDLE").build();
+    }
+
+    private void repairRange(RepairRun run, long fromId, long toId) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                List<RecipeAggregates> stored = aggregateRepository.findStoredAggregates(fromId, toId);
+                Map<Long, long[]> ratings = aggregateRepository.countRatings(fromId, toId);
+                Map<Long, Long> likes = aggregateRepository.countLikes(fromId, toId);
+                Map<Long, Long> comments = aggregateRepository.countComments(fromId, toId);
+
+                List<AggregateFix> fixes = new ArrayList<>();
+                for (RecipeAggregates row : stored) {
+                    long[] rating = ratings.getOrDefault(row.recipeId(), new long[]{0, 0});
+                    RecipeAggregates actual = new RecipeAggregates(row.recipeId(),
+                            (int) rating[0], rating[1],
+                            likes.getOrDefault(row.recipeId(), 0L).intValue(),
+                            comments.getOrDefault(row.recipeId(), 0L).intValue());
+                    if (!actual.equals(row)) {
+                        double average = actual.ratingCount() == 0 ? 0.0 : (double) actual.ratingSum() / actual.ratingCount();
+                        fixes.add(new AggregateFix(row, actual, average,
+                                recipeRankingService.score(actual.ratingSum(), actual.ratingCount())));
+                    }
+                }
+
+                run.recipesScanned.addAndGet(stored.size());
+                run.driftedRecipes.addAndGet(fixes.size());
+                if (!fixes.isEmpty()) {
+                    int[] counts = aggregateRepository.applyFixes(fixes);
+                    for (int count : counts) {
+                        if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                            run.fixedRecipes.incrementAndGet();
+                        } else {
+                            run.skippedRecipes.incrementAndGet();
+                        }
+                    }
+                    log.debug("Fixed {} drifted recipes in ID range {}..{}", fixes.size(), fromId, toId);
+                }
+            });
+        } catch (RuntimeException e) {
+            run.rangesFailed.incrementAndGet();
+            log.error("Aggregate repair failed for ID range {}..{}: {}", fromId, toId, e.getMessage(), e);
+        } finally {
+            run.rangesCompleted.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Mutable progress of one run, updated concurrently by the range tasks.
+     */
+    private static final class RepairRun {
+        private final long rangesTotal;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong rangesCompleted = new AtomicLong();
+        private final AtomicLong rangesFailed = new AtomicLong();
+        private final AtomicLong recipesScanned = new AtomicLong();
+        private final AtomicLong driftedRecipes = new AtomicLong();
+        private final AtomicLong fixedRecipes = new AtomicLong();
+        private final AtomicLong skippedRecipes = new AtomicLong();
+        private volatile String state = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+
+        private RepairRun(long rangesTotal) {
+            this.rangesTotal = rangesTotal;
+        }
+
+        private boolean isRunning() {
+            return "RUNNING".equals(state);
+        }
+
+        private void finish(String finalState) {
+            finishedNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            state = finalState;
+        }
+
+        private AggregateRepairStatus toStatus() {
+            long endNanos = isRunning() ? System.nanoTime() : finishedNanos;
+            double seconds = Duration.ofNanos(endNanos - startNanos).toMillis() / 1000.0;
+            long scanned = recipesScanned.get();
+            return AggregateRepairStatus.builder()
+                    .state(state)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .rangesTotal(rangesTotal)
+                    .rangesCompleted(rangesCompleted.get())
+                    .rangesFailed(rangesFailed.get())
+                    .recipesScanned(scanned)
+                    .driftedRecipes(driftedRecipes.get())
+                    .fixedRecipes(fixedRecipes.get())
+                    .skippedRecipes(skippedRecipes.get())
+                    .recipesPerSecond(seconds > 0 ? scanned / seconds : 0.0)
+                    .build();
+        }
+    }
+}
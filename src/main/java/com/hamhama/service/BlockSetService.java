@@ -0,0 +1,87 @@
+package com.hamhama.service;
+
+import com.hamhama.repository.UserRepository;
+import com.hamhama.security.AuthenticatedUser;
+import com.hamhama.util.LongHashSet;
+import com.hamhama.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The set of user IDs each user has blocked, for hiding their content on reads.
+ * <p>
+ * Sets are loaded on first use with one query, kept as primitive hash sets in an LRU of
+ * {@code block-cache.users} entries, and evicted by block/unblock; list endpoints filter their rows in memory
+ * against the set instead of querying per item.
+ */
+@Service
+public class BlockSetService {
+
+    private final UserRepository userRepository;
+    private final LruCache<Long, LongHashSet> blocked;
+
+    // Bumped on every committed change; a set loaded across a change is used once but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public BlockSetService(UserRepository userRepository,
+                           @Value("${block-cache.users:10000}") int cachedUsers) {
+        this.userRepository = userRepository;
+        this.blocked = new LruCache<>(cachedUsers);
+    }
+
+    /**
+     * @return IDs blocked by the user, empty for null (anonymous).
+     */
+    public LongHashSet getBlockedIds(Long userId) {
+        if (userId == null) {
+            return LongHashSet.EMPTY;
+        }
+        LongHashSet set = blocked.get(userId);
+        if (set != null) {
+            return set;
+        }
+        long loadedAt = generation.get();
+        List<Long> ids = userRepository.findBlockedUserIds(userId);
+        set = ids.isEmpty() ? LongHashSet.EMPTY : new LongHashSet(ids.stream().mapToLong(Long::longValue).toArray());
+        if (generation.get() == loadedAt) {
+            blocked.put(userId, set);
+        }
+        return set;
+    }
+
+    /**
+     * IDs blocked by the authenticated user, empty for anonymous requests.
+     */
+    public LongHashSet getBlockedIdsOfCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            return LongHashSet.EMPTY;
+        }
+        return getBlockedIds(user.getId());
+    }
+
+    /**
+     * Drops the cached set of the user after a block or unblock (again once the transaction completes).
+     */
+    public void blocksChanged(Long userId) {
+        blocked.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    blocked.remove(userId);
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+}
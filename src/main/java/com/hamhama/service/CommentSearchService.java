@@ -0,0 +1,295 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.CommentDTO;
+import com.hamhama.dto.CommentEvent;
+import com.hamhama.dto.CommentSearchHit;
+import com.hamhama.dto.CursorPage;
+import com.hamhama.repository.CommentRepository;
+import com.hamhama.repository.CommentRepository.CommentText;
+import com.hamhama.util.PostingList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over comment content for moderator search.
+ * <p>
+ * Built from the comments table in the background at startup and then kept current from the CommentEvents
+ * published by CommentService (after commit). Posting lists are sorted comment IDs, so results come newest first
+ * and pages continue from an ID cursor. The index narrows the candidates to comments containing every query
+ * word; phrase order is then verified on the loaded content, which also yields the highlights.
+ */
+@Service
+public class CommentSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentSearchService.class);
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final int MAX_CANDIDATES_PER_PAGE = 2000; // Bounds the work of a page for very common words
+
+    private final CommentRepository commentRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Map<Long, String[]> termsByComment = new HashMap<>(); // Forward index, for updates and deletes
+    private final Set<Long> deletedDuringBuild = new HashSet<>();
+    private volatile boolean ready;
+
+    public CommentSearchService(CommentRepository commentRepository) {
+        this.commentRepository = commentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexInBackground() {
+        CompletableFuture.runAsync(this::buildIndex).exceptionally(error -> {
+            log.error("Building the comment search index failed: {}", error.getMessage(), error);
+            return null;
+        });
+    }
+
+    /**
+     * Keeps the index in step with committed comment changes.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCommentEvent(CommentEvent event) {
+        if (event.getType() == CommentEvent.Type.DELETED) {
+            remove(event.getCommentId());
+        } else if (event.getComment() != null) {
+            index(event.getCommentId(), event.getComment().getContent(), true);
+        }
+    }
+
+    /**
+     * Finds comments containing the query words as a phrase, newest first.
+     *
+     * @param query  Words to find (case-insensitive, punctuation ignored).
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size   Maximum number of hits on the page.
+     * @return A page of hits. A page may hold fewer than {@code size} hits when the candidate budget ran out;
+     * follow nextCursor until it is null.
+     * @throws IllegalArgumentException if the query has no searchable words or the cursor is malformed.
+     * @throws IllegalStateException    if the index is still being built.
+     */
+    public CursorPage<CommentSearchHit> search(String query, String cursor, int size) {
+        if (!ready) {
+            throw new IllegalStateException("Comment search index is still being built");
+        }
+        List<String> phrase = tokenize(query).stream().map(Token::term).toList();
+        if (phrase.isEmpty()) {
+            throw new IllegalArgumentException("Search query has no searchable words");
+        }
+        long before = parseCursor(cursor);
+
+        List<CommentSearchHit> hits = new ArrayList<>(size);
+        int examined = 0;
+        boolean exhausted = false;
+        while (hits.size() < size && !exhausted && examined < MAX_CANDIDATES_PER_PAGE) {
+            List<Long> candidates = findCandidates(new LinkedHashSet<>(phrase), before, size * 2);
+            exhausted = candidates.size() < size * 2;
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Map<Long, CommentDTO> loaded = commentRepository.findDtosByIdIn(candidates).stream()
+                    .collect(Collectors.toMap(CommentDTO::getId, Function.identity()));
+            for (Long id : candidates) {
+                before = id;
+                examined++;
+                CommentDTO comment = loaded.get(id);
+                List<int[]> highlights = comment != null ? findPhrase(comment.getContent(), phrase) : List.of();
+                if (!highlights.isEmpty()) {
+                    hits.add(new CommentSearchHit(comment, highlights));
+                    if (hits.size() == size) {
+                        exhausted = exhausted && id.equals(candidates.get(candidates.size() - 1));
+                        break;
+                    }
+                }
+            }
+        }
+        log.debug("Comment search '{}' examined {} candidates, {} hits", query, examined, hits.size());
+        return new CursorPage<>(hits, exhausted ? null : Long.toString(before));
+    }
+
+    private void buildIndex() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int indexed = 0;
+        List<CommentText> batch;
+        do {
+            batch = commentRepository.findTextAfter(afterId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (CommentText comment : batch) {
+                // Live events win over the snapshot: skip comments already (re)indexed or deleted meanwhile
+                index(comment.getId(), comment.getContent(), false);
+                afterId = comment.getId();
+            }
+            indexed += batch.size();
+        } while (batch.size() == BUILD_BATCH_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            deletedDuringBuild.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Comment search index built: {} comments, {} distinct words in {} ms",
+                indexed, postings.size(), System.currentTimeMillis() - start);
+    }
+
+    private void index(long commentId, String content, boolean replace) {
+        Set<String> terms = tokenize(content).stream().map(Token::term).collect(Collectors.toCollection(LinkedHashSet::new));
+        lock.writeLock().lock();
+        try {
+            if (!replace && (termsByComment.containsKey(commentId) || deletedDuringBuild.contains(commentId))) {
+                return;
+            }
+            removeLocked(commentId);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, t -> new PostingList()).add(commentId);
+            }
+            termsByComment.put(commentId, terms.toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long commentId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(commentId);
+            if (!ready) {
+                deletedDuringBuild.add(commentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long commentId) {
+        String[] previous = termsByComment.remove(commentId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            PostingList list = postings.get(term);
+            if (list != null) {
+                list.remove(commentId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the shortest posting list downwards from {@code before} and keeps IDs present in all the others.
+     */
+    private List<Long> findCandidates(Set<String> terms, long before, int limit) {
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                PostingList list = postings.get(term);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            PostingList shortest = lists.get(0);
+
+            List<Long> candidates = new ArrayList<>(limit);
+            for (int i = shortest.lastIndexBelow(before); i >= 0 && candidates.size() < limit; i--) {
+                long id = shortest.get(i);
+                boolean inAll = true;
+                for (int l = 1; l < lists.size() && inAll; l++) {
+                    inAll = lists.get(l).contains(id);
+                }
+                if (inAll) {
+                    candidates.add(id);
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return [start, end) ranges where the phrase occurs as consecutive words, empty if it does not.
+     */
+    private static List<int[]> findPhrase(String content, List<String> phrase) {
+        List<Token> tokens = tokenize(content);
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i + phrase.size() <= tokens.size(); i++) {
+            int matched = 0;
+            while (matched < phrase.size() && tokens.get(i + matched).term().equals(phrase.get(matched))) {
+                matched++;
+            }
+            if (matched == phrase.size()) {
+                ranges.add(new int[]{tokens.get(i).start(), tokens.get(i + matched - 1).end()});
+                i += matched - 1;
+            }
+        }
+        return ranges;
+    }
+
+    private record Token(String term, int start, int end) {
+    }
+
+    /**
+     * Lower-cased runs of letters and digits; the same rules are used for content and queries.
+     */
+    private static List<Token> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                char[] word = text.substring(start, i).toCharArray();
+                for (int c = 0; c < word.length; c++) {
+                    word[c] = Character.toLowerCase(word[c]);
+                }
+                tokens.add(new Token(new String(word), start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -1,24 +1,41 @@
 package com.hamhama.service;
 
 import com.hamhama.dto.CommentDTO; // Import DTO
+import com.hamhama.dto.CommentEvent;
+import com.hamhama.dto.CursorPage;
 import com.hamhama.model.Comment;
 import com.hamhama.model.Recipe;
 import com.hamhama.model.User;
 import com.hamhama.repository.CommentRepository;
+import com.hamhama.repository.CommentRepository.CommentOwner;
+import com.hamhama.repository.CommentThreadRepository;
 import com.hamhama.repository.RecipeRepository;
-// No need for UserRepository if getting user from Comment entity
+import com.hamhama.repository.UserRepository;
+import com.hamhama.security.AuthenticatedUser;
+import com.hamhama.security.OwnershipEvaluator;
+import com.hamhama.util.CommentPath;
+import com.hamhama.util.KeysetCursor;
+import com.hamhama.util.LongHashSet;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors; // Import Collectors
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -29,12 +46,37 @@ public class CommentService {
 
     private final CommentRepository commentRepository;
     private final RecipeRepository recipeRepository;
-    // private final UserRepository userRepository; // Removed if not needed directly
+    private final UserRepository userRepository; // Author references only, the principal carries ID and username
+    private final CommentThreadRepository commentThreadRepository;
+    private final ContentFilterService contentFilterService;
+    private final BlockSetService blockSetService;
+    private final ApplicationEventPublisher eventPublisher; // Live updates, see CommentStreamHub
+    private final OwnershipEvaluator ownershipEvaluator;
+    private final TransactionTemplate transactionTemplate; // Boot's default template, one transaction per backfill chunk
+
+    private static final int PATH_BACKFILL_CHUNK = 1000;
 
     // --- addComment and deleteComment remain mostly the same ---
     // (Ensure they fetch the current user correctly as before)
     public Comment addComment(Long recipeId, String content) {
-        User currentUser = getCurrentUser();
+        return addComment(recipeId, content, null);
+    }
+
+    /**
+     * Adds a comment, or a reply when {@code parentId} is given.
+     * The reply's materialized path is the parent's path plus a segment for its own ID, which is only known
+     * after the insert, so the path is set on the managed entity and flushed with the transaction.
+     *
+     * @param recipeId ID of the recipe.
+     * @param content  Comment text.
+     * @param parentId ID of the comment being replied to, or null for a top-level comment.
+     * @return The saved comment.
+     * @throws IllegalArgumentException if the parent is not a comment on the same recipe or the thread is too deep.
+     * @throws ProhibitedContentException if the content contains a banned term.
+     */
+    public Comment addComment(Long recipeId, String content, Long parentId) {
+        AuthenticatedUser currentUser = getCurrentUser();
+        contentFilterService.check(content); // Throws ProhibitedContentException before anything is loaded
         Recipe recipe = recipeRepository.findById(recipeId)
                 .orElseThrow(() -> {
                     log.warn("Recipe not found with ID: {}", recipeId);
@@ -44,43 +86,156 @@ public class CommentService {
         Comment comment = new Comment();
         comment.setContent(content);
         comment.setRecipe(recipe);
-        comment.setUser(currentUser);
+        comment.setUser(userRepository.getReferenceById(currentUser.getId())); // No SELECT for the author
 
-        Comment savedComment = commentRepository.save(comment);
+        String parentPath = null;
+        if (parentId != null) {
+            Comment parent = commentRepository.findById(parentId)
+                    .filter(c -> c.getRecipe() != null && recipeId.equals(c.getRecipe().getId()))
+                    .orElseThrow(() -> new IllegalArgumentException("Parent comment not found on this recipe"));
+            if (parent.getPath() == null) {
+                throw new IllegalStateException("Parent comment ID " + parentId + " has no thread path yet");
+            }
+            if (parent.getDepth() >= CommentPath.MAX_DEPTH) {
+                throw new IllegalArgumentException("Reply thread is too deep");
+            }
+            comment.setParentId(parentId);
+            comment.setDepth(parent.getDepth() + 1);
+            parentPath = parent.getPath();
+        }
+
+        Comment savedComment = commentRepository.save(comment); // IDENTITY: inserted here, ID now known
+        savedComment.setPath(CommentPath.child(parentPath, savedComment.getId()));
+        recipeRepository.adjustCommentCount(recipeId, 1);
+        eventPublisher.publishEvent(new CommentEvent(CommentEvent.Type.CREATED, recipeId, savedComment.getId(), convertToDto(savedComment)));
         log.info("User '{}' added comment ID {} to recipe ID {}", currentUser.getUsername(), savedComment.getId(), recipeId);
         return savedComment;
     }
 
     /**
-     * Get all comments for a specific recipe as DTOs.
+     * Get one page of a recipe's top-level comments as DTOs, newest first, each with its first replies.
+     * Pages are addressed by a keyset cursor on (timestamp, id), so every page costs one index range scan
+     * no matter how far into the discussion it is. Author fields come from the same SELECT (DTO projection),
+     * and the replies of the whole page are fetched with one more range scan over the thread paths.
      *
      * @param recipeId ID of the recipe.
-     * @return List of CommentDTOs.
+     * @param cursor   Cursor returned with the previous page, or null for the first page.
+     * @param size     Maximum number of top-level comments on the page.
+     * @param replies  Replies to include per top-level comment (0 for none).
+     * @return The page of CommentDTOs (empty if the recipe has no comments or does not exist). Comments by users
+     * the requester blocked are left out, so a page may hold fewer than {@code size} comments.
      */
     @Transactional(readOnly = true) // Read-only transaction
-    public List<CommentDTO> getCommentsByRecipe(Long recipeId) {
-        if (!recipeRepository.existsById(recipeId)) {
-            log.warn("Attempted to get comments for non-existent recipe ID: {}", recipeId);
-            // Depending on requirements, could return empty list or throw exception
-            // throw new RuntimeException("Recipe not found");
-            return List.of(); // Return empty list if recipe doesn't exist
+    public CursorPage<CommentDTO> getCommentsByRecipe(Long recipeId, String cursor, int size, int replies) {
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<CommentDTO> dtos;
+        if (cursor == null || cursor.isBlank()) {
+            dtos = commentRepository.findFirstPageByRecipe(recipeId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            dtos = commentRepository.findPageByRecipeBefore(recipeId, position.timestamp(), position.id(), limit);
+        }
+        log.debug("Fetched {} comments for recipe ID {}", dtos.size(), recipeId);
+        CursorPage<CommentDTO> page = CursorPage.of(dtos, size, dto -> new KeysetCursor(dto.getTimestamp(), dto.getId()).encode());
+        LongHashSet blocked = blockSetService.getBlockedIdsOfCurrentUser();
+        List<CommentDTO> visible = withoutBlocked(page.getItems(), blocked);
+        if (replies > 0) {
+            attachFirstReplies(recipeId, visible, replies);
+            visible.forEach(root -> root.setReplies(withoutBlocked(root.getReplies(), blocked)));
+        }
+        return new CursorPage<>(visible, page.getNextCursor());
+    }
+
+    /**
+     * Get a comment and all of its replies, flattened in thread order (depth gives the nesting level).
+     *
+     * @param commentId ID of the comment at the root of the thread.
+     * @return The comment followed by its descendants.
+     * @throws RuntimeException if the comment does not exist.
+     */
+    @Transactional(readOnly = true)
+    public List<CommentDTO> getThread(Long commentId) {
+        Comment root = commentRepository.findById(commentId)
+                .orElseThrow(() -> new RuntimeException("Comment not found"));
+        if (root.getPath() == null || root.getRecipe() == null) {
+            return List.of(convertToDto(root));
+        }
+        return withoutBlocked(commentRepository.findSubtree(root.getRecipe().getId(), CommentPath.subtreePattern(root.getPath())),
+                blockSetService.getBlockedIdsOfCurrentUser());
+    }
+
+    private static List<CommentDTO> withoutBlocked(List<CommentDTO> comments, LongHashSet blocked) {
+        if (blocked.isEmpty()) {
+            return comments;
+        }
+        List<CommentDTO> visible = new ArrayList<>(comments.size());
+        for (CommentDTO comment : comments) {
+            if (comment.getUserId() == null || !blocked.contains(comment.getUserId())) {
+                visible.add(comment);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Loads the first {@code limit} replies of every top-level comment on the page in one query
+     * and attaches them to their roots.
+     */
+    private void attachFirstReplies(Long recipeId, List<CommentDTO> roots, int limit) {
+        Map<String, CommentDTO> rootsByPath = new HashMap<>();
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        for (CommentDTO root : roots) {
+            root.setReplies(new ArrayList<>());
+            if (root.getPath() != null) {
+                rootsByPath.put(root.getPath(), root);
+                minId = Math.min(minId, root.getId());
+                maxId = Math.max(maxId, root.getId());
+            }
+        }
+        if (rootsByPath.isEmpty()) {
+            return;
+        }
+        // Root paths are the zero-padded IDs, so every subtree of the page lies in [path(minId), path(maxId + 1))
+        List<CommentDTO> replies = commentThreadRepository.findFirstReplies(recipeId, rootsByPath.keySet(),
+                CommentPath.segment(minId), CommentPath.segment(maxId + 1), limit);
+        for (CommentDTO reply : replies) {
+            CommentDTO root = rootsByPath.get(CommentPath.root(reply.getPath()));
+            if (root != null) {
+                root.getReplies().add(reply);
+            }
+        }
+    }
+
+    /**
+     * Gives pre-threading comments a root path so they show up in listings and can be replied to.
+     * Runs once at startup in small chunks, each committed in its own transaction so locks and undo stay
+     * bounded by the chunk; a no-op once every comment has a path.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillCommentPaths() {
+        int total = 0;
+        int updated;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> commentRepository.backfillRootPaths(PATH_BACKFILL_CHUNK));
+            updated = chunk != null ? chunk : 0;
+            total += updated;
+        } while (updated == PATH_BACKFILL_CHUNK);
+        if (total > 0) {
+            log.info("Backfilled thread paths for {} existing comments", total);
         }
-        List<Comment> comments = commentRepository.findByRecipeId(recipeId);
-        log.debug("Found {} comments for recipe ID {}", comments.size(), recipeId);
-        // Convert to DTOs
-        return comments.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
     }
 
 
     // --- Existing Helper Methods ---
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
             throw new AccessDeniedException("User is not authenticated.");
         }
-        return (User) authentication.getPrincipal();
+        return (AuthenticatedUser) authentication.getPrincipal();
     }
 
     public CommentDTO convertToDto(Comment comment) {
@@ -89,6 +244,9 @@ public class CommentService {
         dto.setContent(comment.getContent());
         dto.setTimestamp(comment.getTimestamp());
         dto.setRecipeId(comment.getRecipe() != null ? comment.getRecipe().getId() : null);
+        dto.setParentId(comment.getParentId());
+        dto.setPath(comment.getPath());
+        dto.setDepth(comment.getDepth());
 
         if (comment.getUser() != null) {
             User author = comment.getUser();
@@ -119,7 +277,7 @@ public class CommentService {
      * @param commentId ID of the comment to update.
      * @param newContent The new text content for the comment.
      */
-    @PreAuthorize("@commentRepository.findById(#commentId).orElse(null)?.user?.username == principal.username")
+    @PreAuthorize("@ownership.ownsComment(#commentId)")
     public Comment updateComment(Long commentId, String newContent) {
         // @PreAuthorize handles the ownership check before the method body executes.
         Comment comment = commentRepository.findById(commentId)
@@ -128,23 +286,43 @@ public class CommentService {
                     return new RuntimeException("Comment not found");
                 });
 
+        contentFilterService.check(newContent);
         log.info("User '{}' updating comment ID {}", getCurrentUsername(), commentId);
         comment.setContent(newContent);
         // Timestamp is usually not updated on edit, but could be if needed
         // comment.setTimestamp(LocalDateTime.now());
-        return commentRepository.save(comment);
+        Comment savedComment = commentRepository.save(comment);
+        if (comment.getRecipe() != null) {
+            eventPublisher.publishEvent(new CommentEvent(CommentEvent.Type.UPDATED, comment.getRecipe().getId(), commentId, convertToDto(savedComment)));
+        }
+        return savedComment;
     }
 
 
-    @PreAuthorize("hasRole('ADMIN') or @commentRepository.findById(#commentId).orElse(null)?.user?.username == principal.username")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.ownsComment(#commentId)")
     public void deleteComment(Long commentId) {
-        // @PreAuthorize handles the ownership/admin check.
-        Comment comment = commentRepository.findById(commentId)
+        // @PreAuthorize handles the ownership/admin check; the owner row it read has all this needs
+        CommentOwner comment = ownershipEvaluator.comment(commentId)
                 .orElseThrow(() -> {
                     log.warn("Comment not found for deletion with ID: {}", commentId);
                     return new RuntimeException("Comment not found");
                 });
-        commentRepository.deleteById(commentId);
+        if (comment.getRecipeId() == null || comment.getPath() == null) {
+            commentRepository.deleteAllByIdInBatch(List.of(commentId));
+            if (comment.getRecipeId() != null) {
+                recipeRepository.adjustCommentCount(comment.getRecipeId(), -1);
+                eventPublisher.publishEvent(new CommentEvent(CommentEvent.Type.DELETED, comment.getRecipeId(), commentId, null));
+            }
+        } else {
+            // Replies go with the comment they answer: the whole subtree is one path range
+            Long recipeId = comment.getRecipeId();
+            List<Long> subtreeIds = commentRepository.findSubtreeIds(recipeId, CommentPath.subtreePattern(comment.getPath()));
+            commentRepository.deleteAllByIdInBatch(subtreeIds);
+            recipeRepository.adjustCommentCount(recipeId, -subtreeIds.size());
+            for (Long deletedId : subtreeIds) {
+                eventPublisher.publishEvent(new CommentEvent(CommentEvent.Type.DELETED, recipeId, deletedId, null));
+            }
+        }
         log.info("Comment ID {} deleted successfully by user '{}' or ADMIN.", commentId, getCurrentUsername());
     }
 }
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.CommentEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pub/sub hub for live comment updates, one topic per recipe.
+ * <p>
+ * Subscribers are async SSE responses, so an idle subscriber holds no thread. Each subscriber has a bounded
+ * buffer; publishing only enqueues and schedules a drain on a shared dispatcher pool, so a slow client
+ * never blocks the publishing request. A subscriber whose buffer overflows is disconnected (it can reconnect
+ * and re-read the latest page).
+ * <p>
+ * SseEmitter#send is a blocking write, so every send has a deadline ({@code comments.stream.send-timeout-ms}):
+ * a watchdog completes the emitter of a subscriber whose send is still in progress after it, which closes the
+ * response and fails the stuck write, and drops the subscriber. A client that stops reading therefore holds one
+ * dispatcher thread for at most the deadline, while the other subscribers are served by the rest of the pool.
+ * The watchdog and the heartbeat run on the hub's own timer thread, so long jobs on the shared Spring
+ * scheduler (model and graph rebuilds) cannot delay them.
+ */
+@Service
+public class CommentStreamHub {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentStreamHub.class);
+
+    // Marker queued by the heartbeat; sent as an SSE comment line to keep proxies from closing idle streams
+    private static final CommentEvent HEARTBEAT = new CommentEvent();
+
+    private final Map<Long, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService timer;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+
+    public CommentStreamHub(@Value("${comments.stream.dispatch-threads:16}") int dispatchThreads,
+                            @Value("${comments.stream.buffer-size:64}") int bufferSize,
+                            @Value("${comments.stream.timeout-ms:1800000}") long timeoutMs,
+                            @Value("${comments.stream.send-timeout-ms:5000}") long sendTimeoutMs,
+                            @Value("${comments.stream.heartbeat-ms:15000}") long heartbeatMs,
+                            @Value("${comments.stream.watchdog-ms:1000}") long watchdogMs) {
+        int threads = Math.max(1, dispatchThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "comment-stream-dispatch-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dispatcher.allowCoreThreadTimeOut(true); // Idle hub holds no threads
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMs = timeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, sendTimeoutMs));
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comment-stream-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedule(this::expireStalledSends, Math.max(1, watchdogMs));
+        schedule(this::heartbeat, Math.max(1, heartbeatMs));
+    }
+
+    /**
+     * Opens a live stream of comment events for the given recipe.
+     *
+     * @param recipeId ID of the recipe to follow.
+     * @return The emitter to return from the controller.
+     */
+    public SseEmitter subscribe(Long recipeId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(recipeId, emitter, bufferSize);
+        topics.compute(recipeId, (id, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        log.debug("New comment stream subscriber for recipe ID {}", recipeId);
+        return emitter;
+    }
+
+    /**
+     * Fans an event out to the recipe's subscribers once the publishing transaction has committed,
+     * so clients never see a comment that was rolled back.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCommentEvent(CommentEvent event) {
+        Set<Subscriber> subscribers = topics.get(event.getRecipeId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, event);
+        }
+    }
+
+    void heartbeat() {
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                enqueue(subscriber, HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Enforces the send deadline: a subscriber whose current send has been blocked for longer is disconnected.
+     * Completing the emitter closes the response, which makes the blocked write fail and frees its thread.
+     */
+    void expireStalledSends() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                long startedAt = subscriber.sendStartedAt;
+                if (startedAt != 0 && now - startedAt > sendTimeoutNanos) {
+                    log.info("Dropping stalled comment stream subscriber for recipe ID {} (send blocked for {} ms)",
+                            subscriber.recipeId, TimeUnit.NANOSECONDS.toMillis(now - startedAt));
+                    disconnect(subscriber, new IOException("Comment stream send timed out"));
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return topics.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void enqueue(Subscriber subscriber, CommentEvent event) {
+        if (!subscriber.queue.offer(event)) {
+            log.info("Dropping slow comment stream subscriber for recipe ID {} (buffer of {} full)",
+                    subscriber.recipeId, bufferSize);
+            disconnect(subscriber, null);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        // At most one drain per subscriber is queued or running, which keeps sends ordered
+        if (!subscriber.closed && subscriber.draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            CommentEvent event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedAt = System.nanoTime(); // Watched by expireStalledSends
+                if (event == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getCommentId()))
+                            .name(event.getType().name())
+                            .data(event));
+                }
+                subscriber.sendStartedAt = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the emitter already completed
+            log.debug("Comment stream subscriber for recipe ID {} disconnected: {}", subscriber.recipeId, e.getMessage());
+            remove(subscriber);
+            subscriber.queue.clear();
+        } finally {
+            subscriber.sendStartedAt = 0;
+            subscriber.draining.set(false);
+        }
+        // An event may have been queued after the last poll but before the flag was cleared
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    /**
+     * Removes the subscriber and ends its stream; {@code error} completes it with an error (send timeout).
+     */
+    private void disconnect(Subscriber subscriber, Throwable error) {
+        subscriber.closed = true;
+        remove(subscriber);
+        subscriber.queue.clear();
+        if (error != null) {
+            subscriber.emitter.completeWithError(error);
+        } else {
+            subscriber.emitter.complete();
+        }
+    }
+
+    // A task that throws would be cancelled by the executor, so failures are logged and the schedule kept
+    private void schedule(Runnable task, long delayMs) {
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Comment stream timer task failed: {}", e.getMessage(), e);
+            }
+        }, delayMs, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void remove(Subscriber subscriber) {
+        topics.computeIfPresent(subscriber.recipeId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+        topics.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        topics.clear();
+    }
+
+    private static final class Subscriber {
+        private final Long recipeId;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<CommentEvent> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile long sendStartedAt; // System.nanoTime() of the send in progress, 0 when idle
+        private volatile boolean closed;
+
+        private Subscriber(Long recipeId, SseEmitter emitter, int bufferSize) {
+            this.recipeId = recipeId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.hamhama.service;
+
+import com.hamhama.model.BannedTerm;
+import com.hamhama.repository.BannedTermRepository;
+import com.hamhama.util.AhoCorasick;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Screens user-submitted text against the banned-term list.
+ * <p>
+ * The list is compiled into an Aho-Corasick automaton, so a comment is checked in one pass regardless of how
+ * many terms there are. The automaton is immutable and published through a volatile field: admin changes build
+ * a new one and swap it in, and in-flight checks keep using the one they started with. Rebuilds are serialized
+ * and admin changes rebuild only after they commit, so the last automaton published reflects the latest commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentFilterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentFilterService.class);
+
+    private final BannedTermRepository bannedTermRepository;
+
+    private volatile AhoCorasick automaton = AhoCorasick.compile(List.of());
+
+    /**
+     * @throws ProhibitedContentException if the text contains a banned term.
+     */
+    public void check(String content) {
+        if (content == null) {
+            return;
+        }
+        String match = automaton.findFirst(content);
+        if (match != null) {
+            log.info("Rejected content containing banned term '{}'", match);
+            throw new ProhibitedContentException("Content contains prohibited language");
+        }
+    }
+
+    /**
+     * Rebuilds the automaton from the database. Runs at startup, after admin changes commit and periodically,
+     * so instances pick up changes made elsewhere. Synchronized so a periodic reload that read the table before
+     * an admin change cannot publish its automaton after the one built for that change.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${content-filter.refresh-ms:300000}", fixedDelayString = "${content-filter.refresh-ms:300000}")
+    public synchronized void reload() {
+        long start = System.nanoTime();
+        List<AhoCorasick.Term> terms = bannedTermRepository.findAll().stream()
+                .map(term -> new AhoCorasick.Term(term.getTerm(), term.isWholeWord()))
+                .toList();
+        automaton = AhoCorasick.compile(terms);
+        log.info("Content filter loaded {} banned terms in {} ms", automaton.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<BannedTerm> getBannedTerms() {
+        return bannedTermRepository.findAll();
+    }
+
+    /**
+     * Adds terms that are not already banned and swaps in a new automaton.
+     *
+     * @return The newly stored terms.
+     */
+    @Transactional
+    public List<BannedTerm> addBannedTerms(List<String> terms, boolean wholeWord) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String term : terms) {
+            if (term != null && !term.isBlank()) {
+                normalized.add(term.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("No terms given");
+        }
+        Set<String> existing = new HashSet<>();
+        bannedTermRepository.findByTermIn(normalized).forEach(term -> existing.add(term.getTerm()));
+
+        List<BannedTerm> added = new ArrayList<>();
+        for (String term : normalized) {
+            if (existing.contains(term)) {
+                continue;
+            }
+            if (term.length() > 100) {
+                throw new IllegalArgumentException("Term is too long: " + term);
+            }
+            BannedTerm bannedTerm = new BannedTerm();
+            bannedTerm.setTerm(term);
+            bannedTerm.setWholeWord(wholeWord);
+            added.add(bannedTerm);
+        }
+        List<BannedTerm> saved = bannedTermRepository.saveAll(added);
+        reloadAfterCommit();
+        log.info("Added {} banned terms", saved.size());
+        return saved;
+    }
+
+    @Transactional
+    public void deleteBannedTerm(Long id) {
+        if (!bannedTermRepository.existsById(id)) {
+            throw new RuntimeException("Banned term not found");
+        }
+        bannedTermRepository.deleteById(id);
+        reloadAfterCommit();
+        log.info("Deleted banned term ID {}", id);
+    }
+
+    /**
+     * Rebuilds once the surrounding transaction commits, so the automaton is built from committed rows only
+     * and a rolled-back change never reaches it.
+     */
+    private void reloadAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+}
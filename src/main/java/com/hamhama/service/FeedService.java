@@ -0,0 +1,380 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.CursorPage;
+import com.hamhama.dto.RecipeEvent;
+import com.hamhama.dto.RecipeResponseDTO;
+import com.hamhama.repository.FeedEntryRepository;
+import com.hamhama.repository.RecipeRepository;
+import com.hamhama.repository.UserRepository;
+import com.hamhama.util.LruCache;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Home feed: the newest recipes of the users someone follows.
+ * <p>
+ * Fan-out on write: when a recipe is committed its ID is inserted into the feed_entries row set of every follower
+ * of the author (one INSERT ... SELECT), and pushed into the in-memory buffers of followers whose feed is cached.
+ * Buffers hold the newest {@code feed.memory.size} IDs per user in a sorted ring; pages beyond them are read
+ * from the table by primary key, and the table is trimmed to {@code feed.persisted.size} entries per user.
+ * <p>
+ * Authors with more than {@code feed.celebrity-threshold} followers are not fanned out (one recipe would write
+ * that many rows); their recipes are merged in at read time through the recipes (user_id, id) index instead.
+ * Either way a page costs a bounded number of index range scans of page size, plus one query to load the recipes.
+ */
+@Service
+public class FeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedService.class);
+
+    private final FeedEntryRepository feedEntryRepository;
+    private final RecipeRepository recipeRepository;
+    private final UserRepository userRepository;
+    private final RecipeService recipeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int celebrityThreshold;
+    private final int memorySize;
+    private final int persistedSize;
+
+    private final LruCache<Long, FeedBuffer> buffers;
+
+    // A buffer loaded from the table may only be cached if no fan-out ran concurrently with the load;
+    // otherwise the load could miss a recipe whose push skipped the not-yet-cached buffer.
+    private final Object fanOutLock = new Object();
+    private long fanOutsStarted;
+    private long fanOutsFinished;
+
+    // Bumped when removed entries are committed; a buffer loaded across that may hold them, so it is not cached
+    private final AtomicLong removalGeneration = new AtomicLong();
+
+    public FeedService(FeedEntryRepository feedEntryRepository,
+                       RecipeRepository recipeRepository,
+                       UserRepository userRepository,
+                       RecipeService recipeService,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${feed.celebrity-threshold:10000}") int celebrityThreshold,
+                       @Value("${feed.memory.size:200}") int memorySize,
+                       @Value("${feed.memory.users:10000}") int memoryUsers,
+                       @Value("${feed.persisted.size:1000}") int persistedSize) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.recipeRepository = recipeRepository;
+        this.userRepository = userRepository;
+        this.recipeService = recipeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Single writer: fan-outs and removals apply in the order recipes were committed
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "feed-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.celebrityThreshold = Math.max(0, celebrityThreshold);
+        this.memorySize = Math.max(1, memorySize);
+        this.persistedSize = Math.max(this.memorySize, persistedSize);
+        this.buffers = new LruCache<>(memoryUsers);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeEvent(RecipeEvent event) {
+        executor.execute(() -> {
+            try {
+                if (event.getType() == RecipeEvent.Type.CREATED) {
+                    fanOut(event.getAuthorId(), event.getRecipeId());
+                } else {
+                    removeRecipe(event.getRecipeId());
+                }
+            } catch (RuntimeException e) {
+                log.error("Feed update for recipe ID {} failed: {}", event.getRecipeId(), e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Returns a page of the user's home feed, newest first.
+     *
+     * @param userId ID of the feed owner.
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size   Maximum number of recipes on the page.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public CursorPage<RecipeResponseDTO> getFeed(Long userId, String cursor, int size) {
+        long before = parseCursor(cursor);
+        List<Long> fannedOut = fannedOutIds(userId, before, size + 1);
+        List<Long> readTime = recipeRepository.findIdsByFollowedAuthorsWithFollowersOver(
+                userId, celebrityThreshold, before, size + 1);
+        List<Long> ids = mergeDescending(fannedOut, readTime, size + 1);
+
+        CursorPage<Long> page = CursorPage.of(ids, size, id -> Long.toString(id));
+        // Recipes deleted since they were fanned out are skipped, so a page can come back short
+        return new CursorPage<>(recipeService.getRecipesByIds(page.getItems(), true), page.getNextCursor());
+    }
+
+    /**
+     * Removes the author's recipes from the follower's feed after an unfollow. Runs in the caller's transaction;
+     * the cached buffer is dropped again once it completes, so a read that reloaded it from the rows not yet
+     * deleted cannot keep the author's recipes cached.
+     */
+    public void removeAuthorFromFeed(Long followerId, Long authorId) {
+        int removed = feedEntryRepository.deleteByUserAndAuthor(followerId, authorId);
+        buffers.remove(followerId); // Reloaded from the table on the next read
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removalGeneration.incrementAndGet();
+                    buffers.remove(followerId);
+                }
+            });
+        } else {
+            removalGeneration.incrementAndGet();
+        }
+        log.debug("Removed {} feed entries of author ID {} for user ID {}", removed, authorId, followerId);
+    }
+
+    /**
+     * Keeps the persisted feeds bounded; older pages simply end.
+     */
+    @Scheduled(initialDelayString = "${feed.trim-ms:3600000}", fixedDelayString = "${feed.trim-ms:3600000}")
+    public void trimFeeds() {
+        List<Long> users = feedEntryRepository.findUsersOverCap(persistedSize);
+        int removed = 0;
+        for (Long userId : users) {
+            Integer count = transactionTemplate.execute(status -> feedEntryRepository.trimUser(userId, persistedSize));
+            removed += count != null ? count : 0;
+        }
+        if (!users.isEmpty()) {
+            log.info("Trimmed {} feed entries of {} users", removed, users.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void fanOut(Long authorId, Long recipeId) {
+        Integer followerCount = userRepository.findFollowerCount(authorId);
+        if (followerCount != null && followerCount > celebrityThreshold) {
+            log.debug("Recipe ID {} not fanned out: author ID {} has {} followers", recipeId, authorId, followerCount);
+            return;
+        }
+        synchronized (fanOutLock) {
+            fanOutsStarted++;
+        }
+        try {
+            Integer inserted = transactionTemplate.execute(status -> feedEntryRepository.fanOut(authorId, recipeId));
+            // Pushed only after the commit, so a buffer loaded later from the table already contains the recipe
+            int pushed = 0;
+            for (Long followerId : userRepository.findFollowerIds(authorId)) {
+                FeedBuffer buffer = buffers.get(followerId);
+                if (buffer != null) {
+                    buffer.add(recipeId);
+                    pushed++;
+                }
+            }
+            log.debug("Fanned out recipe ID {} to {} feeds ({} cached)", recipeId, inserted, pushed);
+        } finally {
+            synchronized (fanOutLock) {
+                fanOutsFinished++;
+            }
+        }
+    }
+
+    private void removeRecipe(Long recipeId) {
+        transactionTemplate.executeWithoutResult(status -> feedEntryRepository.deleteByRecipe(recipeId));
+        buffers.forEach((userId, buffer) -> buffer.remove(recipeId));
+    }
+
+    private List<Long> fannedOutIds(Long userId, long before, int limit) {
+        FeedBuffer buffer = buffers.get(userId);
+        if (buffer == null) {
+            buffer = loadBuffer(userId);
+        }
+        List<Long> ids = new ArrayList<>(limit);
+        long oldest = buffer.collectBefore(before, limit, ids);
+        if (ids.size() < limit && !buffer.isComplete()) {
+            // Past the end of the buffer: continue from the table
+            long from = ids.isEmpty() ? Math.min(before, oldest) : ids.get(ids.size() - 1);
+            ids.addAll(feedEntryRepository.findRecipeIds(userId, from, limit - ids.size()));
+        }
+        return ids;
+    }
+
+    private FeedBuffer loadBuffer(Long userId) {
+        long removalsSeen = removalGeneration.get();
+        long started;
+        boolean idle;
+        synchronized (fanOutLock) {
+            started = fanOutsStarted;
+            idle = fanOutsStarted == fanOutsFinished;
+        }
+        List<Long> newest = feedEntryRepository.findRecipeIds(userId, Long.MAX_VALUE, memorySize);
+        FeedBuffer buffer = new FeedBuffer(memorySize, newest, newest.size() < memorySize);
+        synchronized (fanOutLock) {
+            if (idle && fanOutsStarted == started && removalGeneration.get() == removalsSeen) {
+                buffers.put(userId, buffer);
+            }
+        }
+        return buffer;
+    }
+
+    private static List<Long> mergeDescending(List<Long> a, List<Long> b, int limit) {
+        List<Long> merged = new ArrayList<>(Math.min(limit, a.size() + b.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < a.size() || j < b.size())) {
+            long next;
+            if (j >= b.size() || (i < a.size() && a.get(i) >= b.get(j))) {
+                next = a.get(i++);
+            } else {
+                next = b.get(j++);
+            }
+            // An author who crossed the threshold can appear in both sources
+            if (merged.isEmpty() || merged.get(merged.size() - 1) != next) {
+                merged.add(next);
+            }
+        }
+        return merged;
+    }
+
+    private static long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * The newest recipe IDs of one feed in a fixed-size ring, kept in ascending order. New recipes normally
+     * arrive in ID order and are appended in O(1), overwriting the oldest entry when full.
+     */
+    static final class FeedBuffer {
+        private final long[] ring;
+        private int head;  // Index of the oldest entry
+        private int count;
+        private boolean complete; // True while the buffer holds every persisted entry of the feed
+
+        FeedBuffer(int capacity, List<Long> newestFirst, boolean complete) {
+            this.ring = new long[capacity];
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                ring[count++] = newestFirst.get(i);
+            }
+            this.complete = complete;
+        }
+
+        synchronized boolean isComplete() {
+            return complete;
+        }
+
+        synchronized void add(long id) {
+            int position = upperBound(id);
+            if (position > 0 && at(position - 1) == id) {
+                return;
+            }
+            if (count < ring.length) {
+                for (int i = count; i > position; i--) {
+                    set(i, at(i - 1));
+                }
+                set(position, id);
+                count++;
+                return;
+            }
+            complete = false; // The oldest entry now only exists in the table
+            if (position == 0) {
+                return; // Older than everything kept
+            }
+            if (position == count) {
+                // Newest: the oldest slot becomes the newest one
+                head = (head + 1) % ring.length;
+                set(count - 1, id);
+                return;
+            }
+            // Drop the oldest and shift the older part down by one
+            for (int i = 0; i < position - 1; i++) {
+                set(i, at(i + 1));
+            }
+            set(position - 1, id);
+        }
+
+        synchronized void remove(long id) {
+            int position = upperBound(id) - 1;
+            if (position < 0 || at(position) != id) {
+                return;
+            }
+            for (int i = position; i < count - 1; i++) {
+                set(i, at(i + 1));
+            }
+            count--;
+        }
+
+        /**
+         * Adds up to {@code limit} IDs below {@code before} to {@code out}, newest first.
+         *
+         * @return The oldest ID in the buffer, or {@code Long.MAX_VALUE} if it is empty.
+         */
+        synchronized long collectBefore(long before, int limit, List<Long> out) {
+            for (int i = lowerBound(before) - 1; i >= 0 && out.size() < limit; i--) {
+                out.add(at(i));
+            }
+            return count > 0 ? at(0) : Long.MAX_VALUE;
+        }
+
+        private long at(int logical) {
+            return ring[(head + logical) % ring.length];
+        }
+
+        private void set(int logical, long value) {
+            ring[(head + logical) % ring.length] = value;
+        }
+
+        // First logical index with a value greater than id
+        private int upperBound(long id) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (at(mid) <= id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        // First logical index with a value not less than id
+        private int lowerBound(long id) {
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (at(mid) < id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
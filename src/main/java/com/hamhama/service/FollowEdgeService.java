@@ -0,0 +1,106 @@
+package com.hamhama.service;
+
+import com.hamhama.repository.UserRepository;
+import com.hamhama.util.BloomFilter;
+import com.hamhama.util.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers "does X follow Y" for access checks on private profiles without loading User collections.
+ * <p>
+ * Each user's follower IDs are loaded once into a sorted long[] fronted by a Bloom filter, so most negative
+ * answers cost a few bit probes and positive ones a binary search. Sets are kept in an LRU of
+ * {@code follow-cache.users} entries and evicted when the user gains or loses a follower (follow, unfollow, block).
+ * Users with more than {@code follow-cache.max-followers} followers are not cached; their edges are checked
+ * against the unique (follower_id, following_id) key instead.
+ */
+@Service
+public class FollowEdgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowEdgeService.class);
+
+    private final UserRepository userRepository;
+    private final LruCache<Long, FollowerSet> followers;
+    private final int maxFollowers;
+
+    // Bumped on every committed change; a set loaded across a change is used once but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public FollowEdgeService(UserRepository userRepository,
+                             @Value("${follow-cache.users:10000}") int cachedUsers,
+                             @Value("${follow-cache.max-followers:100000}") int maxFollowers) {
+        this.userRepository = userRepository;
+        this.followers = new LruCache<>(cachedUsers);
+        this.maxFollowers = Math.max(1, maxFollowers);
+    }
+
+    public boolean isFollower(Long userId, Long candidateFollowerId) {
+        FollowerSet set = followers.get(userId);
+        if (set == null) {
+            set = load(userId);
+        }
+        if (set == OVERSIZED) {
+            return userRepository.existsFollow(candidateFollowerId, userId);
+        }
+        return set.contains(candidateFollowerId);
+    }
+
+    /**
+     * Drops the cached follower set of the user; call when someone starts or stops following them.
+     * Inside a transaction the entry is dropped again after commit, so a concurrent load of the old state
+     * cannot linger.
+     */
+    public void followersChanged(Long userId) {
+        followers.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generation.incrementAndGet();
+                    followers.remove(userId);
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+        }
+    }
+
+    private FollowerSet load(Long userId) {
+        long loadedAt = generation.get();
+        List<Long> ids = userRepository.findFollowerIdsLimited(userId, PageRequest.of(0, maxFollowers + 1));
+        FollowerSet set;
+        if (ids.size() > maxFollowers) {
+            set = OVERSIZED;
+        } else {
+            long[] sorted = new long[ids.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = ids.get(i);
+            }
+            Arrays.sort(sorted);
+            set = new FollowerSet(sorted, BloomFilter.of(sorted));
+        }
+        if (generation.get() == loadedAt) {
+            followers.put(userId, set);
+        }
+        log.trace("Loaded {} follower IDs of user ID {}", ids.size(), userId);
+        return set;
+    }
+
+    private static final FollowerSet OVERSIZED = new FollowerSet(new long[0], BloomFilter.of(new long[0]));
+
+    private record FollowerSet(long[] sortedIds, BloomFilter filter) {
+        boolean contains(long id) {
+            return filter.mightContain(id) && Arrays.binarySearch(sortedIds, id) >= 0;
+        }
+    }
+}
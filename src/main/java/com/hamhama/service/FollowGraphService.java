@@ -0,0 +1,368 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.UserSuggestionDTO;
+import com.hamhama.repository.FollowGraphRepository;
+import com.hamhama.repository.UserRepository;
+import com.hamhama.util.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory follow graph for "people you may know" suggestions.
+ * <p>
+ * The graph is a compressed sparse row snapshot: user IDs are remapped to dense indexes (position in a sorted
+ * long[]), and each user's followees are a sorted slice of one int[]. Follows and unfollows committed after the
+ * snapshot was loaded live in a small overlay keyed by user ID that reads merge on the fly; the snapshot is
+ * rebuilt periodically and the overlay entries it has absorbed are dropped.
+ * <p>
+ * Suggestions count, for every user two hops away, how many of the requester's followees follow them, using
+ * a scratch array indexed by dense ID (only touched slots are reset), and keep the top ones. Scratch arrays
+ * (4 bytes per user each) come from a pool of {@code suggestions.scratch-pool-size}; requests beyond it count
+ * in a HashMap instead of allocating another array.
+ */
+@Service
+public class FollowGraphService {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowGraphService.class);
+
+    private final FollowGraphRepository followGraphRepository;
+    private final UserRepository userRepository;
+    private final BlockSetService blockSetService;
+    private final int maxEdgesPerRequest;
+
+    private volatile Graph graph;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // follower ID -> followee ID -> latest committed change not yet (known to be) in the snapshot
+    private final Map<Long, Map<Long, EdgeChange>> overlay = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    private final int scratchPoolSize;
+    private final ArrayBlockingQueue<Scratch> scratchPool;
+    private final AtomicInteger scratchAllocated = new AtomicInteger(); // Arrays handed out or pooled, at most the pool size
+
+    public FollowGraphService(FollowGraphRepository followGraphRepository,
+                              UserRepository userRepository,
+                              BlockSetService blockSetService,
+                              @Value("${suggestions.max-edges-per-request:200000}") int maxEdgesPerRequest,
+                              @Value("${suggestions.scratch-pool-size:8}") int scratchPoolSize) {
+        this.followGraphRepository = followGraphRepository;
+        this.userRepository = userRepository;
+        this.blockSetService = blockSetService;
+        this.maxEdgesPerRequest = Math.max(1, maxEdgesPerRequest);
+        this.scratchPoolSize = Math.max(1, scratchPoolSize);
+        this.scratchPool = new ArrayBlockingQueue<>(this.scratchPoolSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildGraphInBackground() {
+        CompletableFuture.runAsync(this::rebuild).exceptionally(error -> {
+            log.error("Loading the follow graph failed: {}", error.getMessage(), error);
+            return null;
+        });
+    }
+
+    /**
+     * Folds the overlay into a fresh snapshot so it stays small.
+     */
+    @Scheduled(initialDelayString = "${suggestions.graph.rebuild-ms:1800000}", fixedDelayString = "${suggestions.graph.rebuild-ms:1800000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // Changes up to here are committed, so the load below sees them
+            long absorbedUpTo = changeSequence.get();
+            Graph loaded = load();
+            graph = loaded;
+            overlay.values().forEach(edges -> edges.values().removeIf(change -> change.sequence() <= absorbedUpTo));
+            overlay.values().removeIf(Map::isEmpty);
+            log.info("Follow graph loaded: {} users, {} edges in {} ms",
+                    loaded.userIds.length, loaded.targets.length, System.currentTimeMillis() - start);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Records a follow or unfollow once the surrounding transaction commits.
+     */
+    public void followChanged(Long followerId, Long followingId, boolean follows) {
+        Runnable apply = () -> overlay.computeIfAbsent(followerId, id -> new ConcurrentHashMap<>())
+                .put(followingId, new EdgeChange(follows, changeSequence.incrementAndGet()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Suggests users followed by the people the user follows, most shared followees first. Users already
+     * followed, the user themself and users they blocked are excluded.
+     *
+     * @param userId ID of the requesting user.
+     * @param limit  Maximum number of suggestions.
+     * @throws IllegalStateException if the graph is still being loaded.
+     */
+    public List<UserSuggestionDTO> suggestFor(Long userId, int limit) {
+        Graph current = graph;
+        if (current == null) {
+            throw new IllegalStateException("Follow graph is still being loaded");
+        }
+        Scratch counts = acquireScratch(current); // Null when the pool is exhausted
+        // Users created after the snapshot (no dense index), or every candidate when there is no scratch array
+        Map<Long, Integer> mapCounts = new HashMap<>();
+        long[] followees = followees(current, userId);
+        try {
+            int budget = maxEdgesPerRequest;
+            for (long followee : followees) {
+                long[] secondHop = followees(current, followee);
+                for (long candidate : secondHop) {
+                    int index = counts != null ? current.indexOf(candidate) : -1;
+                    if (index >= 0) {
+                        counts.increment(index);
+                    } else {
+                        mapCounts.merge(candidate, 1, Integer::sum);
+                    }
+                }
+                budget -= secondHop.length;
+                if (budget <= 0) {
+                    log.debug("Suggestion budget exhausted for user ID {} after scanning part of {} followees", userId, followees.length);
+                    break;
+                }
+            }
+
+            LongPredicate excluded = excludedFor(userId, followees);
+            Comparator<long[]> byCount = Comparator.<long[]>comparingLong(c -> c[1]).thenComparingLong(c -> -c[0]);
+            PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, byCount); // {userId, count}, weakest first
+            if (counts != null) {
+                for (int i = 0; i < counts.touchedCount; i++) {
+                    int index = counts.touched[i];
+                    offer(top, limit, byCount, excluded, current.userIds[index], counts.counts[index]);
+                }
+            }
+            mapCounts.forEach((candidate, count) -> offer(top, limit, byCount, excluded, candidate, count));
+
+            List<long[]> ranked = new ArrayList<>(top);
+            ranked.sort(byCount.reversed());
+            return toSuggestions(ranked);
+        } finally {
+            releaseScratch(counts);
+        }
+    }
+
+    private static void offer(PriorityQueue<long[]> top, int limit, Comparator<long[]> byCount, LongPredicate excluded,
+                              long candidate, int count) {
+        if (excluded.test(candidate)) {
+            return;
+        }
+        long[] entry = {candidate, count};
+        if (top.size() < limit) {
+            top.add(entry);
+        } else if (byCount.compare(entry, top.peek()) > 0) {
+            top.poll();
+            top.add(entry);
+        }
+    }
+
+    private LongPredicate excludedFor(Long userId, long[] followees) {
+        LongHashSet followed = new LongHashSet(followees);
+        LongHashSet blocked = blockSetService.getBlockedIds(userId);
+        return candidate -> candidate == userId || followed.contains(candidate) || blocked.contains(candidate);
+    }
+
+    private List<UserSuggestionDTO> toSuggestions(List<long[]> ranked) {
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserSuggestionDTO> users = userRepository.findSuggestionsByIdIn(
+                        ranked.stream().map(entry -> entry[0]).toList()).stream()
+                .collect(Collectors.toMap(UserSuggestionDTO::getId, Function.identity()));
+        List<UserSuggestionDTO> suggestions = new ArrayList<>(ranked.size());
+        for (long[] entry : ranked) {
+            UserSuggestionDTO user = users.get(entry[0]);
+            if (user != null) { // Deleted since the snapshot
+                user.setMutualFollows((int) entry[1]);
+                suggestions.add(user);
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * The user's followees: the snapshot row with the overlay applied.
+     */
+    private long[] followees(Graph current, long userId) {
+        int index = current.indexOf(userId);
+        int from = index >= 0 ? current.offsets[index] : 0;
+        int to = index >= 0 ? current.offsets[index + 1] : 0;
+        Map<Long, EdgeChange> changes = overlay.get(userId);
+        if (changes == null || changes.isEmpty()) {
+            long[] ids = new long[to - from];
+            for (int i = from; i < to; i++) {
+                ids[i - from] = current.userIds[current.targets[i]];
+            }
+            return ids;
+        }
+        long[] ids = new long[to - from + changes.size()];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            long followee = current.userIds[current.targets[i]];
+            EdgeChange change = changes.get(followee);
+            if (change == null || change.follows()) {
+                ids[count++] = followee;
+            }
+        }
+        for (Map.Entry<Long, EdgeChange> change : changes.entrySet()) {
+            int target = current.indexOf(change.getKey());
+            boolean inSnapshot = target >= 0 && Arrays.binarySearch(current.targets, from, to, target) >= 0;
+            if (change.getValue().follows() && !inSnapshot) {
+                ids[count++] = change.getKey();
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private Graph load() {
+        long[] userIds = followGraphRepository.findAllUserIds();
+        int[] offsets = new int[userIds.length + 1];
+        int[][] targets = {new int[1024]};
+        int[] edgeCount = {0};
+        int[] lastSource = {-1};
+        List<long[]> unknownEdges = new ArrayList<>(); // Users created after the ID list was read
+        followGraphRepository.forEachEdge((followerId, followingId) -> {
+            int source = Arrays.binarySearch(userIds, followerId);
+            int target = Arrays.binarySearch(userIds, followingId);
+            if (source < 0 || target < 0) {
+                unknownEdges.add(new long[]{followerId, followingId});
+                return;
+            }
+            // Edges arrive grouped by follower in ID order, so rows are filled left to right
+            for (int s = lastSource[0] + 1; s <= source; s++) {
+                offsets[s] = edgeCount[0];
+            }
+            lastSource[0] = source;
+            if (edgeCount[0] == targets[0].length) {
+                targets[0] = Arrays.copyOf(targets[0], edgeCount[0] * 2);
+            }
+            targets[0][edgeCount[0]++] = target;
+        });
+        for (int s = lastSource[0] + 1; s <= userIds.length; s++) {
+            offsets[s] = edgeCount[0];
+        }
+        // Kept in the overlay past this rebuild, since the snapshot cannot hold them
+        for (long[] edge : unknownEdges) {
+            overlay.computeIfAbsent(edge[0], id -> new ConcurrentHashMap<>())
+                    .putIfAbsent(edge[1], new EdgeChange(true, changeSequence.incrementAndGet()));
+        }
+        return new Graph(userIds, offsets, Arrays.copyOf(targets[0], edgeCount[0]));
+    }
+
+    /**
+     * @return A cleared scratch array sized for the snapshot, or null if all of them are in use.
+     */
+    private Scratch acquireScratch(Graph current) {
+        Scratch counts = scratchPool.poll();
+        if (counts == null) {
+            if (scratchAllocated.incrementAndGet() > scratchPoolSize) {
+                scratchAllocated.decrementAndGet();
+                return null;
+            }
+            return new Scratch(current.userIds.length);
+        }
+        if (counts.counts.length != current.userIds.length) {
+            return new Scratch(current.userIds.length); // Rebuilt with a different user count; replaces the old one
+        }
+        return counts;
+    }
+
+    private void releaseScratch(Scratch counts) {
+        if (counts != null) {
+            counts.reset();
+            scratchPool.offer(counts); // Always fits: no more arrays exist than the pool holds
+        }
+    }
+
+    private record EdgeChange(boolean follows, long sequence) {
+    }
+
+    /**
+     * Immutable CSR snapshot: followees of dense user i are targets[offsets[i] .. offsets[i + 1]).
+     */
+    private static final class Graph {
+        final long[] userIds; // Dense index -> user ID, ascending
+        final int[] offsets;
+        final int[] targets;
+
+        Graph(long[] userIds, int[] offsets, int[] targets) {
+            this.userIds = userIds;
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        int indexOf(long userId) {
+            int index = Arrays.binarySearch(userIds, userId);
+            return index >= 0 ? index : -1;
+        }
+    }
+
+    /**
+     * Pooled counters indexed by dense user ID, plus the list of slots to clear afterwards.
+     */
+    private static final class Scratch {
+        final int[] counts;
+        int[] touched = new int[256];
+        int touchedCount;
+
+        Scratch(int size) {
+            this.counts = new int[size];
+        }
+
+        void increment(int index) {
+            if (counts[index]++ == 0) {
+                if (touchedCount == touched.length) {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+                touched[touchedCount++] = index;
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                counts[touched[i]] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
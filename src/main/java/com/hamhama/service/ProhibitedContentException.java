@@ -0,0 +1,12 @@
+package com.hamhama.service;
+
+/**
+ * Thrown when submitted content contains a banned term. Extends IllegalArgumentException so
+ * controllers that already map invalid input to 400 handle it without changes.
+ */
+public class ProhibitedContentException extends IllegalArgumentException {
+
+    public ProhibitedContentException(String message) {
+        super(message);
+    }
+}
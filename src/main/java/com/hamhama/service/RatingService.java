@@ -1,14 +1,13 @@
 package com.hamhama.service;
 
-import com.hamhama.model.Rating;
 import com.hamhama.model.Recipe;
-import com.hamhama.model.User;
 import com.hamhama.repository.RatingRepository;
 import com.hamhama.repository.RecipeRepository;
-import com.hamhama.repository.UserRepository;
+import com.hamhama.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize; // Import
 import org.springframework.security.core.Authentication;
@@ -16,7 +15,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
 import java.util.Objects;
 
 @Service
@@ -28,70 +26,55 @@ public class RatingService {
 
     private final RecipeRepository recipeRepository;
     private final RatingRepository ratingRepository;
+    private final RecipeRankingService recipeRankingService;
     // UserRepository might not be strictly needed if we rely on the principal
     // private final UserRepository userRepository;
 
     /**
      * Adds or updates a rating for a recipe by the currently authenticated user.
+     * The rating row is written with a single upsert; its previous value drives the aggregate delta.
      *
      * @param recipeId    ID of the recipe being rated.
      * @param ratingValue The rating value (1-5).
      */
-    public Rating addRating(Long recipeId, int ratingValue) {
+    public void addRating(Long recipeId, int ratingValue) {
         if (ratingValue < 1 || ratingValue > 5) {
             throw new IllegalArgumentException("Rating must be between 1 and 5");
         }
 
-        User currentUser = getCurrentUser();
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> {
-                    log.warn("Recipe not found with ID: {}", recipeId);
-                    return new RuntimeException("Recipe not found");
-                });
-
-        // Check if the user has already rated the recipe
-        Rating existingRating = ratingRepository.findByUserAndRecipe(currentUser, recipe);
-        Rating savedRating;
-
-        if (existingRating != null) {
-            log.debug("User '{}' updating existing rating for recipe ID {}", currentUser.getUsername(), recipeId);
-            existingRating.setRatingValue(ratingValue);
-            savedRating = ratingRepository.save(existingRating);
-        } else {
-            log.debug("User '{}' adding new rating for recipe ID {}", currentUser.getUsername(), recipeId);
-            Rating newRating = new Rating();
-            newRating.setRatingValue(ratingValue);
-            newRating.setRecipe(recipe);
-            newRating.setUser(currentUser); // Use authenticated user
-            savedRating = ratingRepository.save(newRating);
+        AuthenticatedUser currentUser = getCurrentUser();
+        try {
+            ratingRepository.upsertRating(currentUser.getId(), recipeId, ratingValue);
+        } catch (DataIntegrityViolationException e) {
+            // The recipe_id foreign key rejects ratings for recipes that do not exist
+            log.warn("Recipe not found with ID: {}", recipeId);
+            throw new RuntimeException("Recipe not found", e);
         }
 
-        // Update the average rating of the recipe (could be optimized)
-        updateAverageRating(recipe);
-        log.info("Rating added/updated successfully for recipe ID {} by user '{}'. New average: {}", recipeId, currentUser.getUsername(), recipe.getAverageRating());
-        return savedRating;
+        // previous_value is 0 when the upsert inserted a new row
+        int previousValue = ratingRepository.findPreviousValue(currentUser.getId(), recipeId);
+        long sumDelta = ratingValue - previousValue;
+        int countDelta = previousValue == 0 ? 1 : 0;
+        log.debug("User '{}' {} rating for recipe ID {}", currentUser.getUsername(),
+                countDelta == 1 ? "added new" : "updated existing", recipeId);
+
+        // Apply the change to the recipe's aggregates and ranking score incrementally
+        applyRatingDelta(recipeId, sumDelta, countDelta);
+        log.info("Rating added/updated successfully for recipe ID {} by user '{}'.", recipeId, currentUser.getUsername());
     }
 
     /**
-     * Updates the average rating for a given recipe.
-     * (Consider if this needs to be public or can remain private)
+     * Applies a rating change to the recipe's sum, count, average and ranking score
+     * in one atomic UPDATE, using the current ranking prior.
      *
-     * @param recipe The recipe to update.
+     * @param recipeId   The recipe whose aggregates change.
+     * @param sumDelta   Change to the sum of rating values.
+     * @param countDelta Change to the number of ratings (-1, 0 or 1).
      */
-    // Made public in case it needs to be triggered elsewhere, but consider if private is sufficient
-    public void updateAverageRating(Recipe recipe) {
-        // Refresh the recipe to get the latest ratings list, especially if run in a separate transaction
-        Recipe freshRecipe = recipeRepository.findById(recipe.getId()).orElse(recipe); // Fallback to passed-in recipe
-        List<Rating> ratings = freshRecipe.getRatings(); // Use potentially refreshed list
-
-        if (ratings == null || ratings.isEmpty()) {
-            freshRecipe.setAverageRating(0.0);
-        } else {
-            double totalRating = ratings.stream().mapToInt(Rating::getRatingValue).sum();
-            freshRecipe.setAverageRating(totalRating / ratings.size());
-        }
-        log.debug("Updating average rating for recipe ID {} to {}", freshRecipe.getId(), freshRecipe.getAverageRating());
-        recipeRepository.save(freshRecipe); // Save the updated recipe
+    private void applyRatingDelta(Long recipeId, long sumDelta, int countDelta) {
+        log.debug("Applying rating delta (sum {}, count {}) to recipe ID {}", sumDelta, countDelta, recipeId);
+        recipeRepository.applyRatingDelta(recipeId, sumDelta, countDelta,
+                recipeRankingService.getPriorWeight(), recipeRankingService.getPriorMean());
     }
 
     /**
@@ -109,7 +92,7 @@ public class RatingService {
                 });
 
         // If recipe.getAverageRating() returns primitive double, it cannot be null.
-        // The updateAverageRating method should ensure it's 0.0 if no ratings exist.
+        // applyRatingDelta keeps it at 0.0 when no ratings exist.
         return recipe.getAverageRating(); // CORRECTED: Directly return the double value.
     }
 
@@ -122,34 +105,32 @@ public class RatingService {
     // Simpler approach: Delete based on user and recipe, assuming only owner calls this endpoint.
     // Let's use the user ID and recipe ID approach first.
     public void deleteRating(Long recipeId) {
-        User currentUser = getCurrentUser();
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        AuthenticatedUser currentUser = getCurrentUser();
 
-        Rating existingRating = ratingRepository.findByUserAndRecipe(currentUser, recipe);
-        if (existingRating == null) {
+        Integer existingValue = ratingRepository.findRatingValueForUpdate(currentUser.getId(), recipeId);
+        if (existingValue == null) {
             log.warn("User '{}' attempted to delete non-existent rating for recipe ID {}", currentUser.getUsername(), recipeId);
             throw new RuntimeException("Rating not found for this user and recipe");
         }
 
-        // No need for @PreAuthorize here as we fetched the rating FOR the current user.
+        // No need for @PreAuthorize here as the rating is addressed by the current user's ID.
         // If an admin needed to delete *any* rating by ID, a different method with @PreAuthorize would be needed.
 
-        ratingRepository.delete(existingRating);
+        ratingRepository.deleteByUserIdAndRecipeId(currentUser.getId(), recipeId);
         log.info("Rating deleted successfully for recipe ID {} by user '{}'.", recipeId, currentUser.getUsername());
 
-        // Update the average rating
-        updateAverageRating(recipe); // Pass the fetched recipe
+        // Update the recipe's aggregates
+        applyRatingDelta(recipeId, -existingValue, -1);
     }
 
 
     // --- Helper Methods ---
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
             throw new AccessDeniedException("User is not authenticated.");
         }
-        return (User) authentication.getPrincipal();
+        return (AuthenticatedUser) authentication.getPrincipal();
     }
 
     private String getCurrentUsername() {
@@ -0,0 +1,146 @@
+package com.hamhama.service;
+
+import com.hamhama.repository.RecipeAggregateRepository;
+import com.hamhama.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns the prior used for the Bayesian ranking score:
+ * score = (C * m + sum) / (C + count), where m is the global mean rating and C the prior weight
+ * (how many "virtual" average votes every recipe starts with).
+ * <p>
+ * Per-rating updates are applied incrementally by RatingService using the current prior;
+ * the prior itself is refreshed in the background and all scores are re-computed in ID ranges.
+ */
+@Service
+public class RecipeRankingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipeRankingService.class);
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeAggregateRepository aggregateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double priorWeight;
+    private final double defaultMean;
+    private final int rescoreBatchSize;
+
+    private volatile double priorMean;
+
+    public RecipeRankingService(RecipeRepository recipeRepository,
+                                RecipeAggregateRepository aggregateRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${ranking.prior.weight:5}") double priorWeight,
+                                @Value("${ranking.prior.default-mean:3.0}") double defaultMean,
+                                @Value("${ranking.rescore.batch-size:1000}") int rescoreBatchSize) {
+        if (priorWeight <= 0) {
+            throw new IllegalArgumentException("ranking.prior.weight must be positive");
+        }
+        this.recipeRepository = recipeRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.priorWeight = priorWeight;
+        this.defaultMean = defaultMean;
+        this.rescoreBatchSize = Math.max(1, rescoreBatchSize);
+        this.priorMean = defaultMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    /**
+     * Computes the ranking score for the given aggregates with the current prior.
+     */
+    public double score(long ratingSum, int ratingCount) {
+        return (priorWeight * priorMean + ratingSum) / (priorWeight + ratingCount);
+    }
+
+    /**
+     * Refreshes the global mean and re-scores every recipe against it.
+     * Runs once shortly after startup and then periodically.
+     */
+    @Scheduled(initialDelayString = "${ranking.prior.initial-delay-ms:10000}",
+            fixedDelayString = "${ranking.prior.refresh-ms:600000}")
+    public void refreshPrior() {
+        Double globalMean = recipeRepository.findGlobalMeanRating();
+        double newMean = globalMean != null ? globalMean : defaultMean;
+        priorMean = newMean;
+
+        Long maxId = recipeRepository.findMaxId();
+        if (maxId == null) {
+            log.debug("No recipes to re-score, prior mean set to {}", newMean);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int updated = 0;
+        // Small ID ranges keep each UPDATE's row locks short-lived
+        for (long from = 1; from <= maxId; from += rescoreBatchSize) {
+            updated += recipeRepository.rescoreRange(from, from + rescoreBatchSize - 1, priorWeight, newMean);
+        }
+        log.info("Ranking prior refreshed (mean={}, weight={}); re-scored {} recipes in {} ms",
+                newMean, priorWeight, updated, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Fills rating_count / rating_sum (and the average and score derived from them) from the ratings table
+     * for recipes rated before the columns existed, which were added as 0. Runs at startup in ID chunks, each
+     * in its own transaction that locks the chunk's recipe rows first, so ratings made meanwhile are neither
+     * lost nor counted twice; recipes whose columns already match are left untouched.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRatingAggregates() {
+        Long minId = recipeRepository.findMinId();
+        Long maxId = recipeRepository.findMaxId();
+        if (minId == null || maxId == null) {
+            return;
+        }
+        int total = 0;
+        for (long start = minId; start <= maxId; start += rescoreBatchSize) {
+            long from = start;
+            long to = start + rescoreBatchSize - 1;
+            Integer chunk = transactionTemplate.execute(status -> backfillRatingRange(from, to));
+            total += chunk != null ? chunk : 0;
+        }
+        if (total > 0) {
+            log.info("Backfilled rating aggregates for {} recipes", total);
+        }
+    }
+
+    private int backfillRatingRange(long fromId, long toId) {
+        Map<Long, long[]> stored = aggregateRepository.lockStoredRatingAggregates(fromId, toId);
+        if (stored.isEmpty()) {
+            return 0;
+        }
+        Map<Long, long[]> actual = aggregateRepository.countRatings(fromId, toId);
+        List<Object[]> rows = new ArrayList<>();
+        actual.forEach((recipeId, totals) -> {
+            long[] current = stored.get(recipeId);
+            if (current != null && (current[0] != totals[0] || current[1] != totals[1])) {
+                int count = (int) totals[0];
+                long sum = totals[1];
+                rows.add(new Object[]{count, sum, (double) sum / count, score(sum, count), recipeId});
+            }
+        });
+        if (!rows.isEmpty()) {
+            aggregateRepository.setRatingAggregates(rows);
+        }
+        return rows.size();
+    }
+}
@@ -4,18 +4,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hamhama.dto.IngredientDTO;
 import com.hamhama.dto.NutritionRequestDTO;
 import com.hamhama.dto.RecipeDTO;
+import com.hamhama.dto.RecipeEvent;
 import com.hamhama.dto.RecipeResponseDTO;
 import com.hamhama.model.Recipe;
 import com.hamhama.model.RecipeCategory;
 import com.hamhama.model.RecipeIngredient; // Assuming this exists
-import com.hamhama.model.User;
 import com.hamhama.repository.RecipeRepository;
+import com.hamhama.repository.UserLikeRepository;
+import com.hamhama.repository.UserRepository;
+import com.hamhama.security.AuthenticatedUser;
+import com.hamhama.security.OwnershipEvaluator;
+import com.hamhama.util.LongHashSet;
 // Assuming IngredientRepository and RecipeIngredientRepository exist if managing ingredients here
 // import com.hamhama.repository.IngredientRepository;
 // import com.hamhama.repository.RecipeIngredientRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize; // Import
 import org.springframework.security.core.Authentication;
@@ -24,9 +31,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +49,12 @@ public class RecipeService {
 
     private final RecipeRepository recipeRepository;
     private final GeminiService geminiService; // Assuming GeminiService exists
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockSetService blockSetService;
+    private final UserLikeRepository userLikeRepository;
+    private final UserRepository userRepository;
+    private final OwnershipEvaluator ownershipEvaluator;
+    private final RecipeRankingService recipeRankingService;
     // Inject IngredientRepository etc. if needed for ingredient mapping
     // private final IngredientRepository ingredientRepository;
 
@@ -51,19 +69,21 @@ public class RecipeService {
             throw new IllegalArgumentException("Recipe category is required");
         }
 
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
 
         Recipe recipe = new Recipe();
         recipe.setName(recipeDTO.getName());
         recipe.setDescription(recipeDTO.getDescription());
         recipe.setCategory(recipeDTO.getCategory());
-        recipe.setUser(currentUser); // Assign the authenticated user
+        recipe.setUser(userRepository.getReferenceById(currentUser.getId())); // Assign the authenticated user, no SELECT
+        recipe.setRankingScore(recipeRankingService.score(0, 0)); // Unrated: the prior mean, not below every rated recipe
 
         // TODO: Handle ingredients mapping from DTO if present
         // mapAndSetIngredients(recipe, recipeDTO.getIngredients());
 
         Recipe savedRecipe = recipeRepository.save(recipe);
         log.info("User '{}' added recipe '{}' (ID: {})", currentUser.getUsername(), savedRecipe.getName(), savedRecipe.getId());
+        eventPublisher.publishEvent(new RecipeEvent(RecipeEvent.Type.CREATED, savedRecipe.getId(), currentUser.getId()));
         return savedRecipe;
     }
 
@@ -74,7 +94,7 @@ public class RecipeService {
      * @param recipeDetails DTO or Entity containing updated details.
      * @return The updated Recipe entity.
      */
-    @PreAuthorize("hasRole('ADMIN') or @recipeRepository.findById(#id).orElse(null)?.user?.username == principal.username")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.ownsRecipe(#id)")
     public Recipe updateRecipe(Long id, Recipe recipeDetails) { // Consider using RecipeDTO here
         // @PreAuthorize handles the ownership/admin check
 
@@ -101,14 +121,15 @@ public class RecipeService {
      *
      * @param id ID of the recipe to delete.
      */
-    @PreAuthorize("hasRole('ADMIN') or @recipeRepository.findById(#id).orElse(null)?.user?.username == principal.username")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.ownsRecipe(#id)")
     public void deleteRecipe(Long id) {
-        // @PreAuthorize handles the ownership/admin check
-        if (!recipeRepository.existsById(id)) {
+        // @PreAuthorize handles the ownership/admin check; its owner lookup also answers existence
+        if (ownershipEvaluator.recipe(id).isEmpty()) {
             log.warn("Recipe ID {} not found for deletion", id);
             throw new RuntimeException("Recipe not found with ID: " + id);
         }
         recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(new RecipeEvent(RecipeEvent.Type.DELETED, id, null));
         log.info("Recipe ID {} deleted successfully by user '{}' or ADMIN.", id, getCurrentUsername());
     }
 
@@ -116,6 +137,18 @@ public class RecipeService {
 
     @Transactional(readOnly = true)
     public List<Recipe> searchRecipes(String name, String description, String ingredient, RecipeCategory category) {
+        // Recipes by users the requester blocked are left out
+        LongHashSet blocked = blockSetService.getBlockedIdsOfCurrentUser();
+        List<Recipe> results = findRecipes(name, description, ingredient, category);
+        if (blocked.isEmpty()) {
+            return results;
+        }
+        return results.stream()
+                .filter(recipe -> recipe.getUser() == null || !blocked.contains(recipe.getUser().getId()))
+                .collect(Collectors.toList());
+    }
+
+    private List<Recipe> findRecipes(String name, String description, String ingredient, RecipeCategory category) {
         // This logic might need refinement based on exact search requirements & indexing
         boolean hasName = StringUtils.hasText(name);
         boolean hasDescription = StringUtils.hasText(description);
@@ -183,21 +216,62 @@ public class RecipeService {
 
 
     @Transactional(readOnly = true)
-    public List<RecipeResponseDTO> getAllRecipes() {
+    public List<RecipeResponseDTO> getAllRecipes(boolean withLikes) {
         log.debug("Fetching all recipes and converting to DTOs.");
         // Add pagination in real app: recipeRepository.findAll(pageable).stream()...
-        return recipeRepository.findAll().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return toResponseDTOs(recipeRepository.findAll(), withLikes);
     }
 
 
+    /**
+     * Returns the highest-ranked recipes by their precomputed Bayesian ranking score,
+     * so recipes with a single 5-star vote do not outrank well-established ones.
+     *
+     * @param limit     Maximum number of recipes to return.
+     * @param withLikes Whether to set likedByCurrentUser (see {@link #toResponseDTOs}).
+     * @return Recipes ordered by ranking score, best first.
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeResponseDTO> getBestRecipes(int limit, boolean withLikes) {
+        log.debug("Fetching top {} recipes by ranking score.", limit);
+        return toResponseDTOs(recipeRepository.findAllByOrderByRankingScoreDescIdDesc(PageRequest.of(0, limit)), withLikes);
+    }
+
     @Transactional(readOnly = true)
     public Optional<RecipeResponseDTO> getRecipeById(Long id) {
         log.debug("Fetching recipe by ID: {}", id);
         return recipeRepository.findById(id).map(this::convertToResponseDTO);
     }
 
+    /**
+     * Loads recipes by ID in the given order; IDs of recipes that no longer exist are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<RecipeResponseDTO> getRecipesByIds(Collection<Long> ids, boolean withLikes) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Recipe> recipes = recipeRepository.findWithUserByIdIn(ids).stream()
+                .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+        return toResponseDTOs(ids.stream().map(recipes::get).filter(Objects::nonNull).toList(), withLikes);
+    }
+
+    /**
+     * Converts a page of recipes to DTOs. With {@code withLikes}, likedByCurrentUser is resolved for the whole
+     * page with one IN query on user_likes (left null for anonymous requests); likeCount is always set from the
+     * denormalized counter.
+     */
+    public List<RecipeResponseDTO> toResponseDTOs(List<Recipe> recipes, boolean withLikes) {
+        List<RecipeResponseDTO> dtos = recipes.stream().map(this::convertToResponseDTO).collect(Collectors.toList());
+        Long userId = withLikes && !dtos.isEmpty() ? getCurrentUserIdOrNull() : null;
+        if (userId != null) {
+            Set<Long> liked = new HashSet<>(userLikeRepository.findLikedRecipeIds(userId,
+                    dtos.stream().map(RecipeResponseDTO::getId).toList()));
+            dtos.forEach(dto -> dto.setLikedByCurrentUser(liked.contains(dto.getId())));
+        }
+        return dtos;
+    }
+
     // --- DTO Conversion ---
     private RecipeResponseDTO convertToResponseDTO(Recipe recipe) {
         RecipeResponseDTO dto = new RecipeResponseDTO();
@@ -206,6 +280,9 @@ public class RecipeService {
         dto.setDescription(recipe.getDescription());
         dto.setCategory(recipe.getCategory());
         dto.setAverageRating(recipe.getAverageRating());
+        dto.setRatingCount(recipe.getRatingCount());
+        dto.setRankingScore(recipe.getRankingScore());
+        dto.setLikeCount(recipe.getLikeCount());
         // Standardize Image URL generation - adjust if needed
         dto.setImageUrl("/recipe-pictures/" + recipe.getId() + ".jpg"); // Example path
         if (recipe.getUser() != null) {
@@ -217,12 +294,16 @@ public class RecipeService {
     }
 
     // --- Helper Methods ---
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
             throw new AccessDeniedException("User is not authenticated.");
         }
-        return (User) authentication.getPrincipal();
+        return (AuthenticatedUser) authentication.getPrincipal();
+    }
+    private Long getCurrentUserIdOrNull() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user ? user.getId() : null;
     }
     private String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -0,0 +1,366 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.RecipeResponseDTO;
+import com.hamhama.repository.RecommendationRepository;
+import com.hamhama.repository.RecommendationRepository.SimilarityRow;
+import com.hamhama.repository.UserLikeRepository;
+import com.hamhama.util.LongIntHashMap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "Recommended for you" recipes from an item-item collaborative filtering model.
+ * <p>
+ * Offline, a scheduled job reads every (user, recipe) interaction (a like, or a rating of at least
+ * {@code recommendations.min-rating}), counts how many users interacted with each pair of recipes, and keeps the
+ * {@code recommendations.neighbors} most similar recipes per recipe by cosine similarity
+ * {@code co(a, b) / sqrt(n(a) * n(b))}. Pair counting is split by the first recipe of the pair across
+ * {@code recommendations.parallelism} workers, each with its own primitive long-keyed map, so no merging or
+ * locking is needed. The result replaces the recipe_similarities table in one transaction and is held in memory
+ * as flat arrays.
+ * <p>
+ * Online, the neighbours of the user's most recent likes are summed in memory (a few hundred entries), recipes
+ * the user already likes are dropped, and the best ones are loaded in one query.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    private final RecommendationRepository recommendationRepository;
+    private final UserLikeRepository userLikeRepository;
+    private final RecipeService recipeService;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int minRating;
+    private final int neighbors;
+    private final int minCooccurrence;
+    private final int maxItemsPerUser;
+    private final int recentLikes;
+
+    private volatile Model model;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    public RecommendationService(RecommendationRepository recommendationRepository,
+                                 UserLikeRepository userLikeRepository,
+                                 RecipeService recipeService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${recommendations.parallelism:4}") int parallelism,
+                                 @Value("${recommendations.min-rating:4}") int minRating,
+                                 @Value("${recommendations.neighbors:20}") int neighbors,
+                                 @Value("${recommendations.min-cooccurrence:2}") int minCooccurrence,
+                                 @Value("${recommendations.max-items-per-user:500}") int maxItemsPerUser,
+                                 @Value("${recommendations.recent-likes:50}") int recentLikes) {
+        this.recommendationRepository = recommendationRepository;
+        this.userLikeRepository = userLikeRepository;
+        this.recipeService = recipeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = new ForkJoinPool(this.parallelism);
+        this.minRating = minRating;
+        this.neighbors = Math.max(1, neighbors);
+        this.minCooccurrence = Math.max(1, minCooccurrence);
+        this.maxItemsPerUser = Math.max(2, maxItemsPerUser);
+        this.recentLikes = Math.max(1, recentLikes);
+    }
+
+    /**
+     * Serves the model stored by the last build until the next one finishes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStoredModelInBackground() {
+        CompletableFuture.runAsync(this::loadStoredModel).exceptionally(error -> {
+            log.error("Loading the recommendation model failed: {}", error.getMessage(), error);
+            return null;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${recommendations.rebuild-ms:21600000}", fixedDelayString = "${recommendations.rebuild-ms:21600000}")
+    public void rebuildModel() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Model built = build();
+            List<SimilarityRow> rows = built.toRows();
+            transactionTemplate.executeWithoutResult(status -> recommendationRepository.replaceSimilarities(rows));
+            model = built;
+            log.info("Recommendation model built: {} recipes with neighbours, {} similarities in {} ms",
+                    built.recipeIds.length, rows.size(), System.currentTimeMillis() - start);
+        } finally {
+            building.set(false);
+        }
+    }
+
+    /**
+     * Recommends recipes similar to the ones the user liked most recently, best first. Users without likes
+     * (or before the first model exists) get the best-ranked recipes instead.
+     *
+     * @param userId ID of the user.
+     * @param limit  Maximum number of recipes.
+     */
+    public List<RecipeResponseDTO> recommendFor(Long userId, int limit) {
+        Model current = model;
+        List<Long> recent = userLikeRepository.findRecentLikedRecipeIds(userId, PageRequest.of(0, recentLikes));
+        if (current == null || recent.isEmpty()) {
+            return recipeService.getBestRecipes(limit, false);
+        }
+        Set<Long> liked = new HashSet<>(recent);
+        Map<Long, Double> scores = new HashMap<>();
+        for (Long recipeId : recent) {
+            int item = Arrays.binarySearch(current.recipeIds, recipeId);
+            if (item < 0) {
+                continue;
+            }
+            for (int n = current.offsets[item]; n < current.offsets[item + 1]; n++) {
+                long candidate = current.neighborIds[n];
+                if (!liked.contains(candidate)) {
+                    scores.merge(candidate, (double) current.scores[n], Double::sum);
+                }
+            }
+        }
+        if (scores.isEmpty()) {
+            return recipeService.getBestRecipes(limit, false);
+        }
+        // Older likes are outside the recent window; drop those too
+        userLikeRepository.findLikedRecipeIds(userId, scores.keySet()).forEach(scores::remove);
+        List<Long> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return recipeService.getRecipesByIds(ranked, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void loadStoredModel() {
+        List<SimilarityRow> rows = new ArrayList<>();
+        recommendationRepository.forEachSimilarity((recipeId, neighborId, score) ->
+                rows.add(new SimilarityRow(recipeId, neighborId, score)));
+        if (rows.isEmpty()) {
+            log.info("No stored recommendation model yet; building one in the background");
+            CompletableFuture.runAsync(this::rebuildModel, pool);
+            return;
+        }
+        if (model == null) { // A build may have finished meanwhile
+            model = Model.fromRows(rows);
+            log.info("Recommendation model loaded: {} similarities", rows.size());
+        }
+    }
+
+    private Model build() {
+        // 1. Per-user baskets, streamed in user order
+        List<long[]> rawBaskets = new ArrayList<>();
+        long[][] basket = {new long[16]};
+        int[] size = {0};
+        long[] user = {Long.MIN_VALUE};
+        recommendationRepository.forEachInteraction(minRating, (userId, recipeId) -> {
+            if (userId != user[0]) {
+                if (size[0] > 1) {
+                    rawBaskets.add(Arrays.copyOf(basket[0], size[0]));
+                }
+                user[0] = userId;
+                size[0] = 0;
+            }
+            if (size[0] < maxItemsPerUser) { // Bounds the pair count of very active users, keeping their latest
+                if (size[0] == basket[0].length) {
+                    basket[0] = Arrays.copyOf(basket[0], size[0] * 2);
+                }
+                basket[0][size[0]++] = recipeId;
+            }
+        });
+        if (size[0] > 1) {
+            rawBaskets.add(Arrays.copyOf(basket[0], size[0]));
+        }
+
+        // 2. Dense recipe indexes and per-recipe user counts
+        long[] recipeIds = rawBaskets.stream().flatMapToLong(Arrays::stream).distinct().sorted().toArray();
+        int[] itemCounts = new int[recipeIds.length];
+        List<int[]> baskets = new ArrayList<>(rawBaskets.size());
+        for (long[] raw : rawBaskets) {
+            int[] items = new int[raw.length];
+            for (int i = 0; i < raw.length; i++) {
+                items[i] = Arrays.binarySearch(recipeIds, raw[i]);
+                itemCounts[items[i]]++;
+            }
+            Arrays.sort(items);
+            baskets.add(items);
+        }
+        rawBaskets.clear();
+
+        // 3. Co-occurrence counts; worker p owns the pairs (a, b), a < b, with a % parallelism == p
+        List<CompletableFuture<LongIntHashMap>> partitions = new ArrayList<>(parallelism);
+        for (int p = 0; p < parallelism; p++) {
+            int partition = p;
+            partitions.add(CompletableFuture.supplyAsync(() -> countPairs(baskets, partition), pool));
+        }
+
+        // 4. Cosine scores and top-K neighbours per recipe
+        TopK top = new TopK(recipeIds.length, neighbors);
+        for (CompletableFuture<LongIntHashMap> partition : partitions) {
+            partition.join().forEach((pair, count) -> {
+                if (count < minCooccurrence) {
+                    return;
+                }
+                int a = (int) (pair >>> 32);
+                int b = (int) pair;
+                float score = (float) (count / Math.sqrt((double) itemCounts[a] * itemCounts[b]));
+                top.offer(a, b, score);
+                top.offer(b, a, score);
+            });
+        }
+        return top.toModel(recipeIds);
+    }
+
+    private LongIntHashMap countPairs(List<int[]> baskets, int partition) {
+        LongIntHashMap counts = new LongIntHashMap(1 << 16);
+        for (int[] items : baskets) {
+            for (int i = 0; i < items.length - 1; i++) {
+                int a = items[i];
+                if (a % parallelism != partition) {
+                    continue;
+                }
+                for (int j = i + 1; j < items.length; j++) {
+                    counts.increment(((long) a << 32) | items[j]);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Bounded best-K lists per recipe in flat arrays; the weakest entry is replaced when a better one arrives.
+     */
+    private static final class TopK {
+        private final int k;
+        private final int[] ids;
+        private final float[] scores;
+        private final int[] counts;
+
+        TopK(int items, int k) {
+            this.k = k;
+            this.ids = new int[items * k];
+            this.scores = new float[items * k];
+            this.counts = new int[items];
+        }
+
+        void offer(int item, int neighbor, float score) {
+            int base = item * k;
+            if (counts[item] < k) {
+                ids[base + counts[item]] = neighbor;
+                scores[base + counts[item]] = score;
+                counts[item]++;
+                return;
+            }
+            int weakest = base;
+            for (int i = base + 1; i < base + k; i++) {
+                if (scores[i] < scores[weakest]) {
+                    weakest = i;
+                }
+            }
+            if (score > scores[weakest]) {
+                ids[weakest] = neighbor;
+                scores[weakest] = score;
+            }
+        }
+
+        Model toModel(long[] recipeIds) {
+            int withNeighbors = 0;
+            int total = 0;
+            for (int count : counts) {
+                if (count > 0) {
+                    withNeighbors++;
+                    total += count;
+                }
+            }
+            long[] modelIds = new long[withNeighbors];
+            int[] offsets = new int[withNeighbors + 1];
+            long[] neighborIds = new long[total];
+            float[] neighborScores = new float[total];
+            int m = 0;
+            int n = 0;
+            Integer[] order = new Integer[k];
+            for (int item = 0; item < counts.length; item++) {
+                if (counts[item] == 0) {
+                    continue;
+                }
+                int base = item * k;
+                int count = counts[item];
+                for (int i = 0; i < count; i++) {
+                    order[i] = base + i;
+                }
+                Arrays.sort(order, 0, count, (x, y) -> Float.compare(scores[y], scores[x]));
+                modelIds[m] = recipeIds[item];
+                offsets[m] = n;
+                for (int i = 0; i < count; i++) {
+                    neighborIds[n] = recipeIds[ids[order[i]]];
+                    neighborScores[n] = scores[order[i]];
+                    n++;
+                }
+                m++;
+            }
+            offsets[m] = n;
+            return new Model(modelIds, offsets, neighborIds, neighborScores);
+        }
+    }
+
+    /**
+     * Immutable neighbour lists: recipe recipeIds[i] has neighbours [offsets[i], offsets[i + 1]), best first.
+     */
+    private record Model(long[] recipeIds, int[] offsets, long[] neighborIds, float[] scores) {
+
+        static Model fromRows(List<SimilarityRow> rows) { // Rows ordered by recipe ID, then score descending
+            long[] recipeIds = rows.stream().mapToLong(SimilarityRow::recipeId).distinct().toArray();
+            int[] offsets = new int[recipeIds.length + 1];
+            long[] neighborIds = new long[rows.size()];
+            float[] scores = new float[rows.size()];
+            int item = -1;
+            for (int n = 0; n < rows.size(); n++) {
+                SimilarityRow row = rows.get(n);
+                if (item < 0 || recipeIds[item] != row.recipeId()) {
+                    offsets[++item] = n;
+                }
+                neighborIds[n] = row.neighborId();
+                scores[n] = row.score();
+            }
+            offsets[recipeIds.length] = rows.size();
+            return new Model(recipeIds, offsets, neighborIds, scores);
+        }
+
+        List<SimilarityRow> toRows() {
+            List<SimilarityRow> rows = new ArrayList<>(neighborIds.length);
+            for (int i = 0; i < recipeIds.length; i++) {
+                for (int n = offsets[i]; n < offsets[i + 1]; n++) {
+                    rows.add(new SimilarityRow(recipeIds[i], neighborIds[n], scores[n]));
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.hamhama.service;
+
+import com.hamhama.dto.CommentEvent;
+import com.hamhama.dto.UserPurgeStatus;
+import com.hamhama.repository.RecipeRepository;
+import com.hamhama.repository.UserContentPurgeRepository;
+import com.hamhama.repository.UserContentPurgeRepository.CommentRow;
+import com.hamhama.repository.UserContentPurgeRepository.RecipeDelta;
+import com.hamhama.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes all comments, ratings and likes of one user (spam cleanup) in the background.
+ * <p>
+ * Work is done in chunks of at most {@code moderation.purge.chunk-size} of the user's rows. Each chunk is one short
+ * transaction that deletes the rows and applies the matching deltas to the affected recipes' aggregates, so row
+ * locks on comments, ratings and recipes are only held for the duration of a chunk, and a failure leaves the
+ * counters consistent with what was actually deleted. Comment deletions are published as CommentEvents so live
+ * streams and the search index follow along.
+ */
+@Service
+public class UserPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+
+    private final UserRepository userRepository;
+    private final RecipeRepository recipeRepository;
+    private final UserContentPurgeRepository purgeRepository;
+    private final RecipeRankingService recipeRankingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final long chunkPauseMs;
+
+    private final Map<Long, PurgeRun> runs = new ConcurrentHashMap<>();
+
+    public UserPurgeService(UserRepository userRepository,
+                            RecipeRepository recipeRepository,
+                            UserContentPurgeRepository purgeRepository,
+                            RecipeRankingService recipeRankingService,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${moderation.purge.chunk-size:500}") int chunkSize,
+                            @Value("${moderation.purge.chunk-pause-ms:20}") long chunkPauseMs) {
+        this.userRepository = userRepository;
+        this.recipeRepository = recipeRepository;
+        this.purgeRepository = purgeRepository;
+        this.recipeRankingService = recipeRankingService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // One purge at a time; further requests queue up behind it
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.chunkSize = Math.max(1, chunkSize);
+        this.chunkPauseMs = Math.max(0, chunkPauseMs);
+    }
+
+    /**
+     * Starts purging the given user's content in the background.
+     *
+     * @param userId ID of the user whose comments, ratings and likes are removed.
+     * @return The status of the new run.
+     * @throws RuntimeException      if the user does not exist.
+     * @throws IllegalStateException if a purge of this user is already running.
+     */
+    public UserPurgeStatus startPurge(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        PurgeRun run = new PurgeRun(userId);
+        PurgeRun previous = runs.get(userId);
+        if ((previous != null && previous.isRunning()) || !replace(userId, previous, run)) {
+            throw new IllegalStateException("A purge of this user is already running");
+        }
+        log.info("Starting content purge of user ID {}", userId);
+        executor.execute(() -> purge(run));
+        return run.toStatus();
+    }
+
+    /**
+     * @return Progress of the current or last purge of the user, or null if none was started.
+     */
+    public UserPurgeStatus getStatus(Long userId) {
+        PurgeRun run = runs.get(userId);
+        return run != null ? run.toStatus() : null;
+    }
+
+    private boolean replace(Long userId, PurgeRun previous, PurgeRun run) {
+        return previous == null ? runs.putIfAbsent(userId, run) == null : runs.replace(userId, previous, run);
+    }
+
+    private void purge(PurgeRun run) {
+        try {
+            run.phase = "COMMENTS";
+            while (purgeCommentChunk(run)) {
+                pause();
+            }
+            run.phase = "RATINGS";
+            while (purgeRatingChunk(run)) {
+                pause();
+            }
+            run.phase = "LIKES";
+            while (purgeLikeChunk(run)) {
+                pause();
+            }
+            run.phase = "DONE";
+            run.finish("COMPLETED", null);
+            log.info("Content purge of user ID {} completed: {} comments, {} ratings, {} likes", run.userId,
+                    run.commentsDeleted.get(), run.ratingsDeleted.get(), run.likesDeleted.get());
+        } catch (RuntimeException e) {
+            // Chunks committed so far stay deleted and their aggregates stay correct; the purge can be restarted
+            run.finish("FAILED", e.getMessage());
+            log.error("Content purge of user ID {} failed in phase {}: {}", run.userId, run.phase, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true if a chunk was deleted (there may be more).
+     */
+    private boolean purgeCommentChunk(PurgeRun run) {
+        Boolean more = transactionTemplate.execute(tx -> {
+            List<CommentRow> chunk = purgeRepository.findCommentChunk(run.userId, chunkSize);
+            if (chunk.isEmpty()) {
+                return false;
+            }
+            // Replies below the user's comments go too, as with a single delete
+            List<CommentRow> rows = purgeRepository.findWithDescendants(chunk);
+            purgeRepository.deleteComments(rows.stream().map(CommentRow::id).toList());
+            Map<Long, Integer> perRecipe = UserContentPurgeRepository.countByRecipe(rows);
+            perRecipe.forEach((recipeId, count) -> recipeRepository.adjustCommentCount(recipeId, -count));
+            for (CommentRow row : rows) {
+                eventPublisher.publishEvent(new CommentEvent(CommentEvent.Type.DELETED, row.recipeId(), row.id(), null));
+            }
+            run.commentsDeleted.addAndGet(rows.size());
+            run.recipesUpdated.addAndGet(perRecipe.size());
+            return true;
+        });
+        if (Boolean.TRUE.equals(more)) {
+            run.chunksCommitted.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean purgeRatingChunk(PurgeRun run) {
+        Boolean more = transactionTemplate.execute(tx -> {
+            List<RecipeDelta> chunk = purgeRepository.findRatingChunk(run.userId, chunkSize);
+            if (chunk.isEmpty()) {
+                return false;
+            }
+            int deleted = purgeRepository.deleteRatings(run.userId, chunk.stream().map(RecipeDelta::recipeId).toList());
+            double priorWeight = recipeRankingService.getPriorWeight();
+            double priorMean = recipeRankingService.getPriorMean();
+            for (RecipeDelta delta : chunk) {
+                recipeRepository.applyRatingDelta(delta.recipeId(), -delta.sum(), -delta.count(), priorWeight, priorMean);
+            }
+            run.ratingsDeleted.addAndGet(deleted);
+            run.recipesUpdated.addAndGet(chunk.size());
+            return true;
+        });
+        if (Boolean.TRUE.equals(more)) {
+            run.chunksCommitted.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean purgeLikeChunk(PurgeRun run) {
+        Boolean more = transactionTemplate.execute(tx -> {
+            List<RecipeDelta> chunk = purgeRepository.findLikeChunk(run.userId, chunkSize);
+            if (chunk.isEmpty()) {
+                return false;
+            }
+            int deleted = purgeRepository.deleteLikes(run.userId, chunk.stream().map(RecipeDelta::recipeId).toList());
+            for (RecipeDelta delta : chunk) {
+                recipeRepository.adjustLikeCount(delta.recipeId(), -delta.count());
+            }
+            run.likesDeleted.addAndGet(deleted);
+            run.recipesUpdated.addAndGet(chunk.size());
+            return true;
+        });
+        if (Boolean.TRUE.equals(more)) {
+            run.chunksCommitted.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void pause() {
+        // Lets other writers get at the rows between chunks
+        if (chunkPauseMs > 0) {
+            try {
+                Thread.sleep(chunkPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Purge interrupted", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Progress of one purge, written by the purge thread and read by status requests.
+     */
+    private static final class PurgeRun {
+        private final Long userId;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong chunksCommitted = new AtomicLong();
+        private final AtomicLong commentsDeleted = new AtomicLong();
+        private final AtomicLong ratingsDeleted = new AtomicLong();
+        private final AtomicLong likesDeleted = new AtomicLong();
+        private final AtomicLong recipesUpdated = new AtomicLong();
+        private volatile String state = "RUNNING";
+        private volatile String phase = "QUEUED";
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private PurgeRun(Long userId) {
+            this.userId = userId;
+        }
+
+        private boolean isRunning() {
+            return "RUNNING".equals(state);
+        }
+
+        private void finish(String finalState, String errorMessage) {
+            finishedAt = LocalDateTime.now();
+            error = errorMessage;
+            state = finalState;
+        }
+
+        private UserPurgeStatus toStatus() {
+            return UserPurgeStatus.builder()
+                    .userId(userId)
+                    .state(state)
+                    .phase(phase)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .chunksCommitted(chunksCommitted.get())
+                    .commentsDeleted(commentsDeleted.get())
+                    .ratingsDeleted(ratingsDeleted.get())
+                    .likesDeleted(likesDeleted.get())
+                    .recipesUpdated(recipesUpdated.get())
+                    .error(error)
+                    .build();
+        }
+    }
+}
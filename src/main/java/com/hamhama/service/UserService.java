@@ -1,20 +1,33 @@
 package com.hamhama.service;
 
+import com.hamhama.dto.CursorPage;
+import com.hamhama.dto.RecipeSummaryDTO;
 import com.hamhama.dto.UserProfile;
-import com.hamhama.model.Recipe;
+import com.hamhama.dto.UserSummaryDTO;
 import com.hamhama.model.User;
 import com.hamhama.repository.RecipeRepository;
+import com.hamhama.repository.UserFollowRepository;
+import com.hamhama.repository.UserLikeRepository;
 import com.hamhama.repository.UserRepository;
+import com.hamhama.security.AuthenticatedUser;
+import com.hamhama.security.PrincipalCache;
+import com.hamhama.util.KeysetCursor;
+import com.hamhama.util.LongHashSet;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize; // Import
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder; // Import for password updates
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -32,9 +45,19 @@ import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 @Transactional
 public class UserService {
     private static final Logger log = LoggerFactory.getLogger(UserService.class);
+    private static final int FOLLOW_COUNT_BACKFILL_CHUNK = 1000;
+    private static final int PROFILE_LIKED_RECIPES = 10; // Liked recipes embedded in a profile
 
     private final UserRepository userRepository;
     private final RecipeRepository recipeRepository;
+    private final UserFollowRepository userFollowRepository;
+    private final UserLikeRepository userLikeRepository;
+    private final FeedService feedService;
+    private final FollowEdgeService followEdgeService;
+    private final BlockSetService blockSetService;
+    private final FollowGraphService followGraphService;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate transactionTemplate; // One transaction per backfill chunk
     // Inject PasswordEncoder if allowing password updates via updateUser
     private final PasswordEncoder passwordEncoder;
 
@@ -66,13 +89,41 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * Deletes the user. The denormalized follow and like counts of everyone the user was connected to are
+     * decremented first with set-based updates, and the follow, follow graph and block caches are told about
+     * every edge that goes away with the account.
+     */
     // @PreAuthorize("hasRole('ADMIN')") // Redundant if SecurityConfig covers DELETE /api/users/{id}
     public void deleteUser(Long id) {
         log.warn("Admin deleting user ID: {}", id); // Log as warning due to destructive nature
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found for deletion with ID: " + id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found for deletion with ID: " + id));
+
+        List<Long> followingIds = userRepository.findFollowingIds(id);
+        List<Long> followerIds = userRepository.findFollowerIds(id);
+        List<Long> blockerIds = userRepository.findBlockerIds(id);
+        userRepository.decrementFollowerCountsOfFollowedBy(id);
+        userRepository.decrementFollowingCountsOfFollowersOf(id);
+        recipeRepository.decrementLikeCountsOfLikesBy(id);
+        userRepository.deleteAllFollowsOf(id); // Both directions; the entity only owns the outgoing rows
+        userRepository.deleteAllBlocksOf(id);
+
+        for (Long followingId : followingIds) {
+            followEdgeService.followersChanged(followingId);
+            followGraphService.followChanged(id, followingId, false);
+        }
+        for (Long followerId : followerIds) {
+            followGraphService.followChanged(followerId, id, false);
         }
-        userRepository.deleteById(id);
+        followEdgeService.followersChanged(id);
+        for (Long blockerId : blockerIds) {
+            blockSetService.blocksChanged(blockerId);
+        }
+        blockSetService.blocksChanged(id);
+
+        userRepository.delete(user);
+        principalCache.userChanged(user.getUsername()); // Tokens of the deleted user stop authenticating
         log.info("Admin successfully deleted user ID: {}", id);
     }
 
@@ -89,12 +140,13 @@ public class UserService {
      */
     @PreAuthorize("hasRole('ADMIN') or #id == principal.id")
     public User updateUser(Long id, User updatedUser) { // VERY IMPORTANT: Use a DTO here
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         boolean isAdmin = currentUser.getAuthorities().stream()
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
 
         User userToUpdate = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        String previousUsername = userToUpdate.getUsername();
 
         log.info("User '{}' attempting to update user ID: {}", currentUser.getUsername(), id);
 
@@ -159,51 +211,60 @@ public class UserService {
 
 
         User savedUser = userRepository.save(userToUpdate);
+        principalCache.userChanged(previousUsername); // Username or roles may have changed
         log.info("User ID {} updated successfully.", id);
         return savedUser;
     }
 
     // --- User Interaction Methods ---
 
+    // Relationship changes are single INSERT IGNORE / DELETE statements on the join tables: the User collections
+    // are never loaded, and the affected-row count tells whether anything changed (idempotent on retries).
+
     public void followUser(Long followingId) {
-        User follower = getCurrentUser(); // Action performer is the logged-in user
-        User following = findUserById(followingId);
+        AuthenticatedUser follower = getCurrentUser(); // Action performer is the logged-in user
 
         if (follower.getId().equals(followingId)) {
             throw new RuntimeException("You cannot follow yourself.");
         }
+        requireUserExists(followingId);
         // Optional: Check if already blocked by the target user?
 
-        if (!follower.getFollowing().contains(following)) {
-            follower.getFollowing().add(following);
-            userRepository.save(follower);
-            log.info("User '{}' started following user '{}'", follower.getUsername(), following.getUsername());
+        if (userRepository.insertFollow(follower.getId(), followingId) == 1) {
+            userRepository.adjustFollowingCount(follower.getId(), 1);
+            userRepository.adjustFollowerCount(followingId, 1);
+            followEdgeService.followersChanged(followingId);
+            followGraphService.followChanged(follower.getId(), followingId, true);
+            log.info("User '{}' started following user ID {}", follower.getUsername(), followingId);
         } else {
-            log.debug("User '{}' already follows user '{}'", follower.getUsername(), following.getUsername());
+            log.debug("User '{}' already follows user ID {}", follower.getUsername(), followingId);
         }
     }
 
     public void unfollowUser(Long followingId) {
-        User follower = getCurrentUser(); // Action performer
-        User following = findUserById(followingId);
-
-        if (follower.getFollowing().contains(following)) {
-            follower.getFollowing().remove(following);
-            userRepository.save(follower);
-            log.info("User '{}' unfollowed user '{}'", follower.getUsername(), following.getUsername());
+        AuthenticatedUser follower = getCurrentUser(); // Action performer
+        requireUserExists(followingId);
+
+        if (userRepository.deleteFollow(follower.getId(), followingId) == 1) {
+            userRepository.adjustFollowingCount(follower.getId(), -1);
+            userRepository.adjustFollowerCount(followingId, -1);
+            followEdgeService.followersChanged(followingId);
+            followGraphService.followChanged(follower.getId(), followingId, false);
+            feedService.removeAuthorFromFeed(follower.getId(), followingId);
+            log.info("User '{}' unfollowed user ID {}", follower.getUsername(), followingId);
         } else {
-            log.debug("User '{}' was not following user '{}'", follower.getUsername(), following.getUsername());
+            log.debug("User '{}' was not following user ID {}", follower.getUsername(), followingId);
         }
     }
 
     public void likeRecipe(Long recipeId) {
-        User user = getCurrentUser(); // Action performer
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        AuthenticatedUser user = getCurrentUser(); // Action performer
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new RuntimeException("Recipe not found");
+        }
 
-        if (!user.getLikedRecipes().contains(recipe)) {
-            user.getLikedRecipes().add(recipe);
-            userRepository.save(user);
+        if (userRepository.insertLike(user.getId(), recipeId) == 1) {
+            recipeRepository.adjustLikeCount(recipeId, 1);
             log.info("User '{}' liked recipe ID {}", user.getUsername(), recipeId);
         } else {
             log.debug("User '{}' already liked recipe ID {}", user.getUsername(), recipeId);
@@ -211,13 +272,13 @@ public class UserService {
     }
 
     public void unlikeRecipe(Long recipeId) {
-        User user = getCurrentUser(); // Action performer
-        Recipe recipe = recipeRepository.findById(recipeId)
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        AuthenticatedUser user = getCurrentUser(); // Action performer
+        if (!recipeRepository.existsById(recipeId)) {
+            throw new RuntimeException("Recipe not found");
+        }
 
-        if (user.getLikedRecipes().contains(recipe)) {
-            user.getLikedRecipes().remove(recipe);
-            userRepository.save(user);
+        if (userRepository.deleteLike(user.getId(), recipeId) == 1) {
+            recipeRepository.adjustLikeCount(recipeId, -1);
             log.info("User '{}' unliked recipe ID {}", user.getUsername(), recipeId);
         } else {
             log.debug("User '{}' had not liked recipe ID {}", user.getUsername(), recipeId);
@@ -225,58 +286,134 @@ public class UserService {
     }
 
     public void blockUser(Long blockedUserId) {
-        User user = getCurrentUser(); // Action performer
-        User blockedUser = findUserById(blockedUserId);
+        AuthenticatedUser user = getCurrentUser(); // Action performer
 
         if (user.getId().equals(blockedUserId)) {
             throw new RuntimeException("You cannot block yourself");
         }
+        requireUserExists(blockedUserId);
 
-        if (!user.getBlockedUsers().contains(blockedUser)) {
-            user.getBlockedUsers().add(blockedUser);
-            // Also remove follow relationships upon blocking
-            user.getFollowing().remove(blockedUser);
-            blockedUser.getFollowing().remove(user);
-            userRepository.save(user);
-            userRepository.save(blockedUser); // Save both sides of follow removal
-            log.info("User '{}' blocked user '{}'", user.getUsername(), blockedUser.getUsername());
-        } else {
-            log.debug("User '{}' already blocked user '{}'", user.getUsername(), blockedUser.getUsername());
+        if (userRepository.insertBlock(user.getId(), blockedUserId) == 0) {
+            log.debug("User '{}' already blocked user ID {}", user.getUsername(), blockedUserId);
             throw new RuntimeException("User is already blocked"); // Maintain original behavior
         }
+        blockSetService.blocksChanged(user.getId());
+        // Also remove follow relationships upon blocking
+        if (userRepository.deleteFollow(user.getId(), blockedUserId) == 1) {
+            userRepository.adjustFollowingCount(user.getId(), -1);
+            userRepository.adjustFollowerCount(blockedUserId, -1);
+            followEdgeService.followersChanged(blockedUserId);
+            followGraphService.followChanged(user.getId(), blockedUserId, false);
+        }
+        if (userRepository.deleteFollow(blockedUserId, user.getId()) == 1) {
+            userRepository.adjustFollowingCount(blockedUserId, -1);
+            userRepository.adjustFollowerCount(user.getId(), -1);
+            followEdgeService.followersChanged(user.getId());
+            followGraphService.followChanged(blockedUserId, user.getId(), false);
+        }
+        log.info("User '{}' blocked user ID {}", user.getUsername(), blockedUserId);
     }
 
     public void unblockUser(Long blockedUserId) {
-        User user = getCurrentUser(); // Action performer
-        User blockedUser = findUserById(blockedUserId);
+        AuthenticatedUser user = getCurrentUser(); // Action performer
+        requireUserExists(blockedUserId);
 
-        if (user.getBlockedUsers().contains(blockedUser)) {
-            user.getBlockedUsers().remove(blockedUser);
-            userRepository.save(user);
-            log.info("User '{}' unblocked user '{}'", user.getUsername(), blockedUser.getUsername());
-        } else {
-            log.debug("User '{}' had not blocked user '{}'", user.getUsername(), blockedUser.getUsername());
+        if (userRepository.deleteBlock(user.getId(), blockedUserId) == 0) {
+            log.debug("User '{}' had not blocked user ID {}", user.getUsername(), blockedUserId);
             throw new RuntimeException("User is not blocked"); // Maintain original behavior
         }
+        blockSetService.blocksChanged(user.getId());
+        log.info("User '{}' unblocked user ID {}", user.getUsername(), blockedUserId);
     }
 
     // --- Read Operations with Potential Privacy/Auth Checks ---
 
+    /**
+     * Get one page of a user's followers, most recent follows first.
+     * Reads user_follows through a keyset-paginated projection, so the cost only depends on the page size.
+     *
+     * @param userId ID of the user whose followers are listed.
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size   Maximum number of entries on the page.
+     * @return The page of follower summaries.
+     * @throws AccessDeniedException    if the profile is private and the requester may not see it.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
     @Transactional(readOnly = true)
-    public List<User> getFollowers(Long userId) {
-        // Check if profile is accessible before returning followers
-        User profileUser = findUserById(userId);
-        User requestingUser = getCurrentUser(); // May be null if anonymous access needs checking
-        if (!isProfileAccessible(userId, requestingUser != null ? requestingUser.getId() : null)) {
-            log.warn("User '{}' denied access to followers of user ID {}",
-                    requestingUser != null ? requestingUser.getUsername() : "anonymous", userId);
-            throw new AccessDeniedException("You do not have permission to view this user's followers.");
-        }
-        log.debug("Fetching followers for accessible profile ID: {}", userId);
-        return profileUser.getFollowers(); // Assuming relation is mapped correctly
+    public CursorPage<UserSummaryDTO> getFollowers(Long userId, String cursor, int size) {
+        checkProfileAccessible(userId, "followers");
+        PageRequest limit = PageRequest.of(0, size + 1); // One extra row tells whether there is a next page
+        List<UserSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userFollowRepository.findFollowersFirstPage(userId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = userFollowRepository.findFollowersBefore(userId, position.timestamp(), position.id(), limit);
+        }
+        log.debug("Fetched {} followers for user ID {}", rows.size(), userId);
+        return withoutBlocked(CursorPage.of(rows, size, row -> new KeysetCursor(row.getFollowedAt(), row.getId()).encode()));
+    }
+
+    /**
+     * Get one page of the users a user follows, most recent follows first.
+     *
+     * @see #getFollowers(Long, String, int)
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserSummaryDTO> getFollowing(Long userId, String cursor, int size) {
+        checkProfileAccessible(userId, "following list");
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<UserSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userFollowRepository.findFollowingFirstPage(userId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = userFollowRepository.findFollowingBefore(userId, position.timestamp(), position.id(), limit);
+        }
+        log.debug("Fetched {} followed users for user ID {}", rows.size(), userId);
+        return withoutBlocked(CursorPage.of(rows, size, row -> new KeysetCursor(row.getFollowedAt(), row.getId()).encode()));
     }
 
-    // Consider similar accessibility check for getFollowing if needed
+    // Hides users the requester blocked; the cursor still comes from the unfiltered page, so a page may be short
+    private CursorPage<UserSummaryDTO> withoutBlocked(CursorPage<UserSummaryDTO> page) {
+        LongHashSet blocked = blockSetService.getBlockedIdsOfCurrentUser();
+        if (blocked.isEmpty()) {
+            return page;
+        }
+        List<UserSummaryDTO> visible = page.getItems().stream().filter(row -> !blocked.contains(row.getId())).toList();
+        return new CursorPage<>(visible, page.getNextCursor());
+    }
+
+    private void checkProfileAccessible(Long userId, String what) {
+        AuthenticatedUser requestingUser = getCurrentUser();
+        if (!isProfileAccessible(userId, requestingUser.getId())) {
+            log.warn("User '{}' denied access to {} of user ID {}", requestingUser.getUsername(), what, userId);
+            throw new AccessDeniedException("You do not have permission to view this user's " + what + ".");
+        }
+    }
+
+    /**
+     * Get one page of the recipes a user liked, most recent likes first, as summaries read by a projection on
+     * user_likes joined to recipes.
+     *
+     * @param userId ID of the user whose likes are listed.
+     * @param cursor Cursor returned with the previous page, or null for the first page.
+     * @param size   Maximum number of entries on the page.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RecipeSummaryDTO> getLikedRecipes(Long userId, String cursor, int size) {
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<RecipeSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = userLikeRepository.findLikedFirstPage(userId, limit);
+        } else {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            rows = userLikeRepository.findLikedBefore(userId, position.timestamp(), position.id(), limit);
+        }
+        log.debug("Fetched {} liked recipes for user ID {}", rows.size(), userId);
+        return CursorPage.of(rows, size, row -> new KeysetCursor(row.getLikedAt(), row.getId()).encode());
+    }
 
     @Transactional(readOnly = true)
     public UserProfile getUserProfile(Long userId) {
@@ -290,16 +427,19 @@ public class UserService {
         //     throw new AccessDeniedException("Profile is private.");
         // }
 
-        int followersCount = user.getFollowers() != null ? user.getFollowers().size() : 0;
-        int followingCount = user.getFollowing() != null ? user.getFollowing().size() : 0;
-        List<Recipe> likedRecipes = user.getLikedRecipes(); // Might be large - consider pagination or limited view
+        // Denormalized counts; only rows not backfilled yet fall back to a COUNT on user_follows
+        int followersCount = user.getFollowerCount() != null ? user.getFollowerCount() : userRepository.countFollowers(userId);
+        int followingCount = user.getFollowingCount() != null ? user.getFollowingCount() : userRepository.countFollowing(userId);
+        // Only a count and the first page of summaries; the rest is paged through getLikedRecipes
+        long likedRecipesCount = userLikeRepository.countByUserId(userId);
+        CursorPage<RecipeSummaryDTO> likedRecipes = getLikedRecipes(userId, null, PROFILE_LIKED_RECIPES);
         Boolean isPrivate = user.getIsPrivate();
         String profilePictureUrl = "/profile-pictures/" + user.getId() + ".jpg"; // Adjust path as needed
 
         log.debug("Generating profile DTO for user ID: {}", userId);
         return new UserProfile(
                 user.getUsername(), user.getEmail(),
-                followersCount, followingCount, likedRecipes,
+                followersCount, followingCount, likedRecipesCount, likedRecipes,
                 profilePictureUrl, isPrivate
         );
     }
@@ -337,21 +477,27 @@ public class UserService {
         return user.getIsPrivate();
     }
 
+    /**
+     * Whether the requesting user may see the profile's details: public profiles are open to everyone,
+     * private ones only to their owner and followers. Only the privacy flag is read from the database;
+     * the follower check is answered from FollowEdgeService's cached follower sets.
+     *
+     * @param requestingUserId ID of the requesting user, or null if anonymous.
+     * @throws RuntimeException if the profile user does not exist.
+     */
     @Transactional(readOnly = true)
     public boolean isProfileAccessible(Long profileUserId, Long requestingUserId) {
-        // Handle case where requesting user is anonymous (not logged in)
-        boolean isAnonymous = requestingUserId == null;
-
-        User profileUser = findUserById(profileUserId);
+        boolean isPrivate = userRepository.findIsPrivateById(profileUserId)
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + profileUserId));
 
         // Public profile? Accessible to everyone.
-        if (profileUser.getIsPrivate() == null || !profileUser.getIsPrivate()) {
+        if (!isPrivate) {
             log.trace("Profile {} is public, accessible.", profileUserId);
             return true;
         }
 
         // Private profile, but requester is anonymous? Not accessible.
-        if (isAnonymous) {
+        if (requestingUserId == null) {
             log.trace("Profile {} is private, anonymous access denied.", profileUserId);
             return false;
         }
@@ -362,11 +508,7 @@ public class UserService {
             return true;
         }
 
-        // Private profile, check if requester is a follower
-        // Need to fetch the requesting user entity to check follower list
-        User requestingUser = findUserById(requestingUserId);
-        // Check if profileUser's list of followers contains requestingUser
-        boolean isFollower = profileUser.getFollowers() != null && profileUser.getFollowers().contains(requestingUser);
+        boolean isFollower = followEdgeService.isFollower(profileUserId, requestingUserId);
         log.trace("Profile {} is private, checking follower status for user {}: {}", profileUserId, requestingUserId, isFollower);
         return isFollower;
     }
@@ -420,6 +562,26 @@ public class UserService {
     }
 
 
+    /**
+     * Computes follower/following counts for users created before the count columns existed.
+     * Runs once at startup in small chunks, each committed on its own; a no-op once every row has its counts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfillFollowCounts() {
+        int total = 0;
+        int updated;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> userRepository.backfillFollowCounts(FOLLOW_COUNT_BACKFILL_CHUNK));
+            updated = chunk != null ? chunk : 0;
+            total += updated;
+        } while (updated == FOLLOW_COUNT_BACKFILL_CHUNK);
+        if (total > 0) {
+            log.info("Backfilled follow counts for {} users", total);
+        }
+    }
+
+
     // --- Helper Methods ---
     // Find user or throw specific exception
     public User findUserById(Long id) {
@@ -427,14 +589,20 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with ID: " + id)); // Consider specific exception
     }
 
-    public User getCurrentUser() {
+    private void requireUserExists(Long id) {
+        if (!userRepository.existsById(id)) {
+            throw new RuntimeException("User not found with ID: " + id); // Same message as findUserById
+        }
+    }
+
+    public AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof User)) {
+        if (authentication == null || !authentication.isAuthenticated() || !(authentication.getPrincipal() instanceof AuthenticatedUser)) {
             // Depending on context, returning null or throwing might be appropriate
             // For methods requiring auth, throwing is safer.
             throw new AccessDeniedException("User is not authenticated.");
         }
-        return (User) authentication.getPrincipal();
+        return (AuthenticatedUser) authentication.getPrincipal();
     }
     private String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
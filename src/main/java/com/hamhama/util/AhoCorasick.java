@@ -0,0 +1,208 @@
+package com.hamhama.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable Aho-Corasick automaton for case-insensitive multi-term search in one linear pass over the text.
+ * <p>
+ * The trie is built with maps and then compiled into flat arrays (sorted edge labels per state, failure links,
+ * and output links to the next accepting state on the failure chain), so scanning allocates nothing and
+ * touches only primitive arrays. Instances are safe to share between threads.
+ */
+public final class AhoCorasick {
+
+    /**
+     * A term to search for. Whole-word terms only match when not surrounded by letters or digits,
+     * which keeps "ass" from matching "class"; other terms (URLs, spam phrases) match anywhere.
+     */
+    public record Term(String text, boolean wholeWord) {
+    }
+
+    private static final int ROOT = 0;
+
+    private final int[] edgeStart;    // state -> first index into edgeChars/edgeTarget; edgeStart[state + 1] ends it
+    private final char[] edgeChars;   // edge labels, sorted per state
+    private final int[] edgeTarget;
+    private final int[] fail;
+    private final int[] outputLink;   // next accepting state reachable through failure links, -1 if none
+    private final int[] termIndex;    // state -> index into terms, -1 if the state does not accept
+    private final String[] terms;
+    private final boolean[] wholeWord;
+    private final int[] termLength;
+
+    private AhoCorasick(int[] edgeStart, char[] edgeChars, int[] edgeTarget, int[] fail, int[] outputLink,
+                        int[] termIndex, String[] terms, boolean[] wholeWord, int[] termLength) {
+        this.edgeStart = edgeStart;
+        this.edgeChars = edgeChars;
+        this.edgeTarget = edgeTarget;
+        this.fail = fail;
+        this.outputLink = outputLink;
+        this.termIndex = termIndex;
+        this.terms = terms;
+        this.wholeWord = wholeWord;
+        this.termLength = termLength;
+    }
+
+    public static AhoCorasick compile(Collection<Term> input) {
+        // 1. Trie with map edges
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        Map<Integer, Term> accepting = new HashMap<>();
+        for (Term term : input) {
+            String text = normalize(term.text());
+            if (text.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            // The same term listed twice: matching anywhere is the stricter setting
+            Term existing = accepting.get(state);
+            boolean whole = term.wholeWord() && (existing == null || existing.wholeWord());
+            accepting.put(state, new Term(text, whole));
+        }
+
+        // 2. Flatten edges
+        int stateCount = trie.size();
+        int[] edgeStart = new int[stateCount + 1];
+        int edgeCount = 0;
+        for (int s = 0; s < stateCount; s++) {
+            edgeStart[s] = edgeCount;
+            edgeCount += trie.get(s).size();
+        }
+        edgeStart[stateCount] = edgeCount;
+        char[] edgeChars = new char[edgeCount];
+        int[] edgeTarget = new int[edgeCount];
+        for (int s = 0; s < stateCount; s++) {
+            int e = edgeStart[s];
+            for (Map.Entry<Character, Integer> edge : trie.get(s).entrySet()) { // TreeMap: sorted by label
+                edgeChars[e] = edge.getKey();
+                edgeTarget[e] = edge.getValue();
+                e++;
+            }
+        }
+
+        // 3. Terms per accepting state
+        int[] termIndex = new int[stateCount];
+        Arrays.fill(termIndex, -1);
+        String[] terms = new String[accepting.size()];
+        boolean[] wholeWord = new boolean[accepting.size()];
+        int[] termLength = new int[accepting.size()];
+        int t = 0;
+        for (Map.Entry<Integer, Term> entry : accepting.entrySet()) {
+            termIndex[entry.getKey()] = t;
+            terms[t] = entry.getValue().text();
+            wholeWord[t] = entry.getValue().wholeWord();
+            termLength[t] = entry.getValue().text().length();
+            t++;
+        }
+
+        // 4. Failure and output links, breadth-first so a state's failure target is always finished first
+        int[] fail = new int[stateCount];
+        int[] outputLink = new int[stateCount];
+        Arrays.fill(outputLink, -1);
+        AhoCorasick partial = new AhoCorasick(edgeStart, edgeChars, edgeTarget, fail, outputLink,
+                termIndex, terms, wholeWord, termLength);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int e = edgeStart[ROOT]; e < edgeStart[ROOT + 1]; e++) {
+            fail[edgeTarget[e]] = ROOT;
+            queue.add(edgeTarget[e]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+                int child = edgeTarget[e];
+                char c = edgeChars[e];
+                int f = fail[state];
+                int target;
+                while ((target = partial.edge(f, c)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 ? target : ROOT;
+                int failTarget = fail[child];
+                outputLink[child] = termIndex[failTarget] >= 0 ? failTarget : outputLink[failTarget];
+                queue.add(child);
+            }
+        }
+        return partial;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * @return The first banned term found in the text (in scan order), or null if there is none.
+     */
+    public String findFirst(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next;
+            while ((next = edge(state, c)) < 0 && state != ROOT) {
+                state = fail[state];
+            }
+            state = next >= 0 ? next : ROOT;
+
+            int out = termIndex[state] >= 0 ? state : outputLink[state];
+            while (out >= 0) {
+                int term = termIndex[out];
+                if (!wholeWord[term] || isWordBoundary(text, i - termLength[term] + 1, i + 1)) {
+                    return terms[term];
+                }
+                out = outputLink[out];
+            }
+        }
+        return null;
+    }
+
+    public boolean matches(CharSequence text) {
+        return findFirst(text) != null;
+    }
+
+    private int edge(int state, char c) {
+        int lo = edgeStart[state];
+        int hi = edgeStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = edgeChars[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordBoundary(CharSequence text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+                && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+
+    private static String normalize(String term) {
+        StringBuilder sb = new StringBuilder(term.length());
+        String trimmed = term.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            sb.append(Character.toLowerCase(trimmed.charAt(i))); // Same per-char folding as the scan
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.hamhama.util;
+
+/**
+ * Immutable Bloom filter over long keys, sized at build time for a false-positive rate of about 1%
+ * (10 bits and 7 probes per key). "No" answers are exact; "maybe" answers need a second check.
+ */
+public final class BloomFilter {
+
+    private static final int BITS_PER_KEY = 10;
+    private static final int PROBES = 7;
+
+    private final long[] words;
+    private final int bitCount;
+
+    private BloomFilter(long[] words) {
+        this.words = words;
+        this.bitCount = words.length * 64;
+    }
+
+    public static BloomFilter of(long[] keys) {
+        int bits = Math.max(64, keys.length * BITS_PER_KEY);
+        BloomFilter filter = new BloomFilter(new long[(bits + 63) / 64]);
+        for (long key : keys) {
+            filter.add(key);
+        }
+        return filter;
+    }
+
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= PROBES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= PROBES; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    // SplitMix64 finalizer: sequential IDs spread over all bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,45 @@
+package com.hamhama.util;
+
+/**
+ * Materialized path of a comment thread: one fixed-width segment per level, each segment being the
+ * comment's ID in zero-padded base 36. Because segments are fixed-width and IDs only grow,
+ * sorting by path lists a thread depth-first with replies in posting order, and a subtree is
+ * exactly the rows whose path starts with the root's path.
+ */
+public final class CommentPath {
+
+    public static final int SEGMENT_LENGTH = 8; // 36^8 ≈ 2.8e12 IDs
+    public static final int MAX_DEPTH = 30;     // (MAX_DEPTH + 1) segments must fit the 255-char column
+
+    private CommentPath() {
+    }
+
+    /**
+     * Must stay in sync with the SQL used to backfill paths: LPAD(LOWER(CONV(id, 10, 36)), 8, '0').
+     */
+    public static String segment(long id) {
+        String base36 = Long.toString(id, 36);
+        if (base36.length() > SEGMENT_LENGTH) {
+            throw new IllegalStateException("Comment ID " + id + " does not fit a path segment");
+        }
+        return "0".repeat(SEGMENT_LENGTH - base36.length()) + base36;
+    }
+
+    public static String child(String parentPath, long id) {
+        return parentPath == null ? segment(id) : parentPath + segment(id);
+    }
+
+    /**
+     * @return The path of the top-level comment the given path belongs to.
+     */
+    public static String root(String path) {
+        return path.substring(0, SEGMENT_LENGTH);
+    }
+
+    /**
+     * @return A LIKE pattern matching the comment with this path and all of its descendants.
+     */
+    public static String subtreePattern(String path) {
+        return path + "%"; // Paths only contain [0-9a-z], nothing to escape
+    }
+}
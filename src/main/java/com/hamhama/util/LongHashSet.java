@@ -0,0 +1,70 @@
+package com.hamhama.util;
+
+/**
+ * Immutable open-addressing hash set of long keys (linear probing, load factor at most 0.5).
+ * Stores the keys in one long[] with no boxing; lookups are safe from any thread.
+ */
+public final class LongHashSet {
+
+    public static final LongHashSet EMPTY = new LongHashSet(new long[0]);
+
+    private static final long FREE = 0; // Key 0 is tracked separately
+
+    private final long[] slots;
+    private final int mask;
+    private final boolean containsZero;
+    private final int size;
+
+    public LongHashSet(long[] keys) {
+        int capacity = Integer.highestOneBit(Math.max(2, keys.length * 2 - 1)) << 1;
+        this.slots = new long[capacity];
+        this.mask = capacity - 1;
+        boolean zero = false;
+        int count = 0;
+        for (long key : keys) {
+            if (key == FREE) {
+                count += zero ? 0 : 1;
+                zero = true;
+                continue;
+            }
+            int i = index(key);
+            while (slots[i] != FREE && slots[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (slots[i] == FREE) {
+                slots[i] = key;
+                count++;
+            }
+        }
+        this.containsZero = zero;
+        this.size = count;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE) {
+            return containsZero;
+        }
+        int i = index(key);
+        long slot;
+        while ((slot = slots[i]) != FREE) {
+            if (slot == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,51 @@
+package com.hamhama.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Small thread-safe LRU map with a fixed number of entries. All operations lock the whole map,
+ * so values should be cheap to look up and safe to use outside the lock.
+ */
+public final class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+
+    public LruCache(int maxEntries) {
+        int capacity = Math.max(1, maxEntries);
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized void remove(K key) {
+        map.remove(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Runs the action on every entry while holding the lock (does not change access order).
+     */
+    public synchronized void forEach(BiConsumer<K, V> action) {
+        map.forEach(action);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hamhama.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of primitive longs backed by a growable array, used as an inverted-index posting list.
+ * IDs are usually added in increasing order, which is an append. Not thread-safe; callers synchronize.
+ */
+public final class PostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    public void add(long id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    public void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Index of the largest ID strictly below {@code bound}, or -1 if there is none.
+     */
+    public int lastIndexBelow(long bound) {
+        int index = Arrays.binarySearch(ids, 0, size, bound);
+        return (index >= 0 ? index : -index - 1) - 1;
+    }
+
+    public long get(int index) {
+        return ids[index];
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+    }
+}
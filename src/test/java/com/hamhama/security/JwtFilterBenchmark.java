@@ -0,0 +1,108 @@
+package com.hamhama.security;
+
+import com.hamhama.model.Role;
+import com.hamhama.model.User;
+import com.hamhama.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request in JwtAuthenticationFilter with a warm principal cache: the token
+ * verified once per request versus served from the verified-token cache, next to the three parses per request
+ * of the previous JwtUtil path (extractUsername, validateToken, isTokenExpired).
+ * <p>
+ * Run with: {@code mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt}
+ * then {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.hamhama.security.JwtFilterBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private Key key;
+    private String token;
+    private JwtAuthenticationFilter uncachedFilter;
+    private JwtAuthenticationFilter cachedFilter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        byte[] secret = new byte[32];
+        new Random(42).nextBytes(secret);
+        String encodedSecret = Base64.getEncoder().encodeToString(secret);
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(encodedSecret));
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("bench-user");
+        user.setRoles(Set.of(Role.USER));
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByUsername("bench-user")).thenReturn(Optional.of(user));
+        PrincipalCache principalCache = new PrincipalCache(userRepository, 100, TimeUnit.HOURS.toMillis(1));
+
+        JwtUtil uncached = new JwtUtil(encodedSecret, TimeUnit.HOURS.toMillis(1), 0);
+        JwtUtil cached = new JwtUtil(encodedSecret, TimeUnit.HOURS.toMillis(1), 1000);
+        token = uncached.generateToken(AuthenticatedUser.of(user));
+        uncachedFilter = new JwtAuthenticationFilter(uncached, principalCache);
+        cachedFilter = new JwtAuthenticationFilter(cached, principalCache);
+
+        request = new MockHttpServletRequest("GET", "/api/users/feed");
+        request.addHeader("Authorization", "Bearer " + token);
+    }
+
+    @Benchmark
+    public Object filterSingleVerification() throws Exception {
+        SecurityContextHolder.clearContext(); // The filter skips requests that are already authenticated
+        uncachedFilter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object filterCachedVerification() throws Exception {
+        SecurityContextHolder.clearContext();
+        cachedFilter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public boolean previousTripleParse() {
+        String username = parse().getSubject();
+        return username.equals(parse().getSubject()) && !parse().getExpiration().before(new Date());
+    }
+
+    private Claims parse() {
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JwtFilterBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}